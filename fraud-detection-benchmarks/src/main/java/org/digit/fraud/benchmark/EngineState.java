@@ -0,0 +1,43 @@
+package org.digit.fraud.benchmark;
+
+import org.digit.fraud.FraudDetectionApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * Starts the fraud detection application without a web server, wired exactly as in
+ * production from the shipped {@code application.properties} and MDMS files.
+ *
+ * Request logging is turned down to WARN; at the default DEBUG level the benchmarks would
+ * mostly measure the logger.
+ */
+final class EngineState {
+
+    private EngineState() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return start(context -> {
+        });
+    }
+
+    /**
+     * Start with extra properties on top of the shipped ones, and {@code initializer} run before
+     * the context is refreshed, e.g. to register replacement beans.
+     */
+    static ConfigurableApplicationContext start(ApplicationContextInitializer<GenericApplicationContext> initializer,
+                                                String... properties) {
+        return new SpringApplicationBuilder(FraudDetectionApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .initializers(initializer)
+                .properties(
+                        "logging.level.org.digit.fraud=WARN",
+                        "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+}
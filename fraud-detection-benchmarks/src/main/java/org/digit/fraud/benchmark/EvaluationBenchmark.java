@@ -0,0 +1,57 @@
+package org.digit.fraud.benchmark;
+
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.model.FraudEvaluationResponse;
+import org.digit.fraud.service.FraudDetectionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FraudDetectionService#evaluateInternalOnly} end to end over the shipped
+ * {@code FraudRules.json}: rule lookup, every internal rule, state updates and scoring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EvaluationBenchmark {
+
+    private static final int FIXTURES = 4096;
+
+    private ConfigurableApplicationContext context;
+    private FraudDetectionService fraudDetectionService;
+    private FraudEvaluationRequest[] requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EngineState.start();
+        fraudDetectionService = context.getBean(FraudDetectionService.class);
+        requests = Fixtures.requests(FIXTURES, 7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public FraudEvaluationResponse evaluateInternalOnly() {
+        return fraudDetectionService.evaluateInternalOnly(requests[next++ & (FIXTURES - 1)]);
+    }
+}
@@ -0,0 +1,80 @@
+package org.digit.fraud.benchmark;
+
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.service.ExpressionEvaluatorService;
+import org.digit.fraud.service.MDMSService;
+import org.digit.fraud.service.rule.CustomExpressionRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.expression.EvaluationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ExpressionEvaluatorService#evaluate} for the shipped CUSTOM rule expressions, with a
+ * new context per evaluation and with one context shared across the request's rules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    private static final int FIXTURES = 1024;
+
+    @Param({"AGGRESSIVE_DOG_NO_PHOTO", "PACK_SIZE_SUSPICIOUSLY_LARGE", "INCOMPLETE_EVIDENCE_SET",
+            "LOCATION_IN_RESTRICTED_AREA", "HIGH_VALUE_REPORTER", "SUSPICIOUS_DEVICE_MODEL"})
+    public String ruleCode;
+
+    private ConfigurableApplicationContext context;
+    private ExpressionEvaluatorService expressionEvaluator;
+    private String expression;
+    private FraudEvaluationRequest[] requests;
+    private EvaluationContext[] sharedContexts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EngineState.start();
+        expressionEvaluator = context.getBean(ExpressionEvaluatorService.class);
+        expression = context.getBean(MDMSService.class).getInternalRules("SDCRS").stream()
+                .filter(r -> r.getCode().equals(ruleCode))
+                .map(r -> ((CustomExpressionRule) r).getExpression())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No shipped CUSTOM rule " + ruleCode));
+        requests = Fixtures.requests(FIXTURES, 42);
+        sharedContexts = new EvaluationContext[FIXTURES];
+        for (int i = 0; i < FIXTURES; i++) {
+            sharedContexts[i] = expressionEvaluator.createContext(requests[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean evaluateWithNewContext() {
+        return expressionEvaluator.evaluate(expression, requests[next++ & (FIXTURES - 1)]);
+    }
+
+    @Benchmark
+    public boolean evaluateWithSharedContext() {
+        return expressionEvaluator.evaluate(expression, sharedContexts[next++ & (FIXTURES - 1)]);
+    }
+}
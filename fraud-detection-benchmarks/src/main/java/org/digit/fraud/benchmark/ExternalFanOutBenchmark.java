@@ -0,0 +1,133 @@
+package org.digit.fraud.benchmark;
+
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.model.FraudEvaluationResponse;
+import org.digit.fraud.model.FraudEvaluationResponse.RuleResult;
+import org.digit.fraud.service.ExternalValidatorService;
+import org.digit.fraud.service.FraudDetectionService;
+import org.digit.fraud.service.rule.ExternalValidatorRule;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load comparison of the two external validator executors: {@link FraudDetectionService#evaluateExternalOnly}
+ * from 64 concurrent callers, with every validator call blocking for {@code validatorLatencyMs}
+ * like a real ML service would.
+ *
+ * Both modes run in one invocation so they are measured on the same hardware:
+ * {@code java -jar target/benchmarks.jar ExternalFanOut}. The {@code virtual} mode needs a Java 21+
+ * runtime and refuses to run on older ones rather than silently measuring the platform pool.
+ * Besides throughput, the {@code complete} and {@code partial} counters show how many evaluations
+ * lost validators to a saturated pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(64)
+public class ExternalFanOutBenchmark {
+
+    private static final int FIXTURES = 1024;
+
+    @Param({"platform", "virtual"})
+    public String executorMode;
+
+    @Param({"50"})
+    public long validatorLatencyMs;
+
+    private ConfigurableApplicationContext context;
+    private FraudDetectionService fraudDetectionService;
+    private FraudEvaluationRequest[] requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = "virtual".equals(executorMode);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("executorMode=virtual needs Java 21+, running on " + Runtime.version());
+        }
+        context = EngineState.start(
+                generic -> generic.registerBean(SlowExternalValidatorService.class,
+                        () -> new SlowExternalValidatorService(validatorLatencyMs),
+                        definition -> definition.setPrimary(true)),
+                "spring.threads.virtual.enabled=" + virtual);
+        fraudDetectionService = context.getBean(FraudDetectionService.class);
+        requests = Fixtures.requests(FIXTURES, 11);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public FraudEvaluationResponse evaluateExternalOnly(Caller caller, Outcomes outcomes) {
+        FraudEvaluationResponse response = fraudDetectionService.evaluateExternalOnly(
+                requests[caller.next++ & (FIXTURES - 1)]);
+        if (Boolean.TRUE.equals(response.getPartial())) {
+            outcomes.partial++;
+        } else {
+            outcomes.complete++;
+        }
+        return response;
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+        int next;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+
+        public long complete;
+        public long partial;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            complete = 0;
+            partial = 0;
+        }
+    }
+
+    /**
+     * The simulated validators with a fixed blocking delay in front of each call.
+     */
+    public static class SlowExternalValidatorService extends ExternalValidatorService {
+
+        private final long latencyMs;
+
+        public SlowExternalValidatorService(long latencyMs) {
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public RuleResult validate(ExternalValidatorRule rule, FraudEvaluationRequest request) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while simulating validator latency", e);
+            }
+            return super.validate(rule, request);
+        }
+    }
+}
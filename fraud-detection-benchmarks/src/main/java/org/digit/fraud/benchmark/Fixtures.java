@@ -0,0 +1,118 @@
+package org.digit.fraud.benchmark;
+
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.model.FraudEvaluationRequest.ApplicantInfo;
+import org.digit.fraud.model.FraudEvaluationRequest.EvidenceData;
+import org.digit.fraud.model.FraudEvaluationRequest.EvidenceMetadata;
+import org.digit.fraud.model.FraudEvaluationRequest.LocationData;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Realistic SDCRS submissions: a dog photo and a selfie taken a few minutes apart and a few
+ * metres apart inside the NCR boundary, with EXIF metadata, device IDs, content and
+ * perceptual hashes, and the additionalData fields the CUSTOM rules read.
+ *
+ * Each fixture uses its own applicant, device and hashes, so the stateful rules see a
+ * steady mix of new and repeat keys rather than one hot key.
+ */
+final class Fixtures {
+
+    private static final double NCR_LATITUDE = 28.61;
+    private static final double NCR_LONGITUDE = 77.21;
+
+    private Fixtures() {
+    }
+
+    static FraudEvaluationRequest[] requests(int count, long seed) {
+        Random random = new Random(seed);
+        long now = System.currentTimeMillis();
+        FraudEvaluationRequest[] requests = new FraudEvaluationRequest[count];
+        for (int i = 0; i < count; i++) {
+            requests[i] = request(i, random, now);
+        }
+        return requests;
+    }
+
+    private static FraudEvaluationRequest request(int index, Random random, long now) {
+        double latitude = NCR_LATITUDE + (random.nextDouble() - 0.5) * 0.2;
+        double longitude = NCR_LONGITUDE + (random.nextDouble() - 0.5) * 0.2;
+        long photoTimestamp = now - (5 + random.nextInt(120)) * 60_000L;
+        String deviceId = String.format("DEVICE-%06d", index);
+
+        EvidenceData dogPhoto = EvidenceData.builder()
+                .fileStoreId("fs-dog-" + index)
+                .purpose("DOG_PHOTO")
+                .contentType("image/jpeg")
+                .contentHash(hex(random, 64))
+                .perceptualHash(hex(random, 16))
+                .metadata(metadata(latitude, longitude, photoTimestamp, deviceId))
+                .build();
+        EvidenceData selfie = EvidenceData.builder()
+                .fileStoreId("fs-selfie-" + index)
+                .purpose("SELFIE")
+                .contentType("image/jpeg")
+                .contentHash(hex(random, 64))
+                .perceptualHash(hex(random, 16))
+                .metadata(metadata(latitude + 0.0001, longitude - 0.0001,
+                        photoTimestamp + random.nextInt(4) * 60_000L, deviceId))
+                .build();
+
+        Map<String, Object> additionalData = new HashMap<>();
+        additionalData.put("dogCount", 1 + random.nextInt(4));
+        additionalData.put("isAggressive", random.nextInt(10) == 0);
+        additionalData.put("imageQualityScore", 0.4 + random.nextDouble() * 0.6);
+        additionalData.put("lifetimeReportCount", random.nextInt(60));
+
+        return FraudEvaluationRequest.builder()
+                .applicationId(String.format("SDCRS-2026-%07d", index))
+                .tenantId("ncr")
+                .moduleCode("SDCRS")
+                .applicantInfo(ApplicantInfo.builder()
+                        .applicantId(String.format("TEACHER-%06d", index))
+                        .userUuid("uuid-" + index)
+                        .mobileNumber(String.format("98%08d", index))
+                        .name("Teacher " + index)
+                        .deviceId(deviceId)
+                        .ipAddress("10.0." + (index >> 8 & 0xFF) + "." + (index & 0xFF))
+                        .build())
+                .locationData(LocationData.builder()
+                        .latitude(latitude)
+                        .longitude(longitude)
+                        .accuracy(8.0)
+                        .locality("Locality " + index % 40)
+                        .ward("Ward " + index % 12)
+                        .district("New Delhi")
+                        .timestamp(photoTimestamp)
+                        .build())
+                .evidences(List.of(dogPhoto, selfie))
+                .additionalData(additionalData)
+                .build();
+    }
+
+    private static EvidenceMetadata metadata(double latitude, double longitude, long timestamp, String deviceId) {
+        return EvidenceMetadata.builder()
+                .gpsLatitude(latitude)
+                .gpsLongitude(longitude)
+                .timestamp(timestamp)
+                .deviceId(deviceId)
+                .deviceModel("Redmi Note 12")
+                .osVersion("Android 14")
+                .exifPresent(true)
+                .width(3000)
+                .height(4000)
+                .format("JPEG")
+                .build();
+    }
+
+    private static String hex(Random random, int digits) {
+        StringBuilder hex = new StringBuilder(digits);
+        for (int i = 0; i < digits; i++) {
+            hex.append(Character.forDigit(random.nextInt(16), 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package org.digit.fraud.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Entry point of {@code benchmarks.jar}.
+ *
+ * Accepts the usual JMH command line and always adds the GC profiler, so every run reports
+ * allocation rate ({@code gc.alloc.rate.norm}) next to throughput and average time.
+ *
+ * After the run, the 99th percentile of every {@link StateStoreBenchmark} lookup is checked
+ * against {@value #STATE_LOOKUP_BOUND_MICROS} microseconds; the process exits with status 1 if any
+ * exceeds it.
+ */
+public final class FraudBenchmarks {
+
+    static final long STATE_LOOKUP_BOUND_MICROS = 50;
+
+    private static final Set<String> STATE_LOOKUPS = Set.of(
+            StateStoreBenchmark.class.getName() + ".countSubmissionsSince",
+            StateStoreBenchmark.class.getName() + ".putHashIfAbsent");
+
+    private FraudBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+        if (!checkStateLookupBound(results)) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean checkStateLookupBound(Collection<RunResult> results) {
+        boolean withinBound = true;
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            if (!STATE_LOOKUPS.contains(params.getBenchmark())) {
+                continue;
+            }
+            double p99 = result.getPrimaryResult().getStatistics().getPercentile(99);
+            double p99Micros = p99 * params.getTimeUnit().toNanos(1) / 1000.0;
+            boolean ok = p99Micros < STATE_LOOKUP_BOUND_MICROS;
+            withinBound &= ok;
+            System.out.printf("%s backend=%s keyCount=%s: p99 %.1f us (bound %d us) %s%n",
+                    params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1),
+                    params.getParam("backend"), params.getParam("keyCount"),
+                    p99Micros, STATE_LOOKUP_BOUND_MICROS, ok ? "OK" : "EXCEEDED");
+        }
+        return withinBound;
+    }
+}
@@ -0,0 +1,71 @@
+package org.digit.fraud.benchmark;
+
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.model.FraudEvaluationResponse.RuleResult;
+import org.digit.fraud.service.InternalRuleEvaluator;
+import org.digit.fraud.service.MDMSService;
+import org.digit.fraud.service.rule.CompiledRule;
+import org.digit.fraud.service.rule.ConditionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InternalRuleEvaluator#evaluate} for the first shipped rule of each condition type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InternalRuleBenchmark {
+
+    private static final int FIXTURES = 1024;
+
+    @Param({"NULL_CHECK", "GEO_BOUNDARY", "GEO_DISTANCE", "VELOCITY", "TIMESTAMP_AGE", "TIMESTAMP_DIFF",
+            "HASH_MATCH", "IMAGE_SIMILARITY", "INTERVAL", "DEVICE_SHARING", "GEO_CLUSTER", "METADATA_CHECK",
+            "TIME_WINDOW", "AGGREGATE_COUNT", "GPS_VELOCITY", "CUSTOM"})
+    public String conditionType;
+
+    private ConfigurableApplicationContext context;
+    private InternalRuleEvaluator evaluator;
+    private CompiledRule rule;
+    private FraudEvaluationRequest[] requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EngineState.start();
+        evaluator = context.getBean(InternalRuleEvaluator.class);
+        ConditionType type = ConditionType.valueOf(conditionType);
+        rule = context.getBean(MDMSService.class).getInternalRules("SDCRS").stream()
+                .filter(r -> r.getConditionType() == type)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No shipped rule with condition type " + type));
+        requests = Fixtures.requests(FIXTURES, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RuleResult evaluate() {
+        return evaluator.evaluate(rule, requests[next++ & (FIXTURES - 1)]);
+    }
+}
@@ -0,0 +1,74 @@
+package org.digit.fraud.benchmark;
+
+import org.digit.fraud.service.state.GeoGridIndex;
+import org.digit.fraud.service.state.PerceptualHashIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query cost of the GEO_CLUSTER grid and the IMAGE_SIMILARITY hash index as the number of live
+ * entries grows. Both should stay roughly flat between the two sizes: the grid visits a fixed
+ * number of cells and the hash index a fixed number of buckets per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SpatialIndexBenchmark {
+
+    /** Roughly the NCR region, about 55 km by 70 km. */
+    private static final double MIN_LATITUDE = 28.4;
+    private static final double LATITUDE_SPAN = 0.5;
+    private static final double MIN_LONGITUDE = 76.8;
+    private static final double LONGITUDE_SPAN = 0.7;
+
+    @Param({"10000", "1000000"})
+    public int livePoints;
+
+    private GeoGridIndex geoIndex;
+    private PerceptualHashIndex hashIndex;
+    private long since;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        geoIndex = new GeoGridIndex(100, 1024, 48);
+        hashIndex = new PerceptualHashIndex(720);
+        Random random = new Random(11);
+        long now = System.currentTimeMillis();
+        since = now - 24 * 3_600_000L;
+        for (int i = 0; i < livePoints; i++) {
+            long timestamp = now - random.nextInt(24 * 3_600_000);
+            geoIndex.record(MIN_LATITUDE + random.nextDouble() * LATITUDE_SPAN,
+                    MIN_LONGITUDE + random.nextDouble() * LONGITUDE_SPAN, timestamp);
+            hashIndex.add(random.nextLong(), "SDCRS-" + i, timestamp);
+        }
+    }
+
+    @Benchmark
+    public int geoClusterCount() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return geoIndex.countWithin(MIN_LATITUDE + random.nextDouble() * LATITUDE_SPAN,
+                MIN_LONGITUDE + random.nextDouble() * LONGITUDE_SPAN, 50, since);
+    }
+
+    @Benchmark
+    public PerceptualHashIndex.Match imageSimilarityLookup() {
+        return hashIndex.findNearest(ThreadLocalRandom.current().nextLong(), 6, since, "SDCRS-NEW");
+    }
+}
@@ -0,0 +1,107 @@
+package org.digit.fraud.benchmark;
+
+import org.digit.fraud.service.state.FraudStateStore;
+import org.digit.fraud.service.state.InMemoryFraudStateStore;
+import org.digit.fraud.service.state.MappedFraudStateStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Latency of the {@link FraudStateStore} backends with one and ten million live applicants.
+ *
+ * The velocity ({@code countSubmissionsSince}) and hash ({@code putHashIfAbsent}) lookups must
+ * stay under {@value FraudBenchmarks#STATE_LOOKUP_BOUND_MICROS} microseconds at the 99th percentile for
+ * both backends at ten million keys; {@link FraudBenchmarks} checks the bound after the run and
+ * exits non-zero if it is exceeded.
+ *
+ * The memory backend at ten million keys holds about 6 GB of submission rings and hash entries,
+ * hence the 12 GB heap; run on a machine with at least 16 GB of RAM, or restrict the run with
+ * {@code -p keyCount=1000000}. The mmap backend maps sparse files of several GB under the temp
+ * directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+@Threads(4)
+public class StateStoreBenchmark {
+
+    @Param({"memory", "mmap"})
+    public String backend;
+
+    @Param({"1000000", "10000000"})
+    public int keyCount;
+
+    private FraudStateStore store;
+    private Path directory;
+    private String[] applicants;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if ("mmap".equals(backend)) {
+            directory = Files.createTempDirectory("fraud-state-bench");
+            store = new MappedFraudStateStore(directory.toString(), 2L * keyCount, 32, 744, 720, 168);
+        } else {
+            store = new InMemoryFraudStateStore(32, 744, 720, 168);
+        }
+        applicants = new String[keyCount];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < keyCount; i++) {
+            applicants[i] = "TEACHER-" + i;
+            store.recordSubmission(applicants[i], now - (i % 600) * 1000L);
+            store.putHashIfAbsent(FraudStateStore.HashType.CONTENT, "hash-" + i, "SDCRS-" + i, now);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (store instanceof MappedFraudStateStore mapped) {
+            mapped.close();
+        }
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public int countSubmissionsSince() {
+        String applicant = applicants[ThreadLocalRandom.current().nextInt(keyCount)];
+        return store.countSubmissionsSince(applicant, System.currentTimeMillis() - 3_600_000L);
+    }
+
+    @Benchmark
+    public void recordSubmission() {
+        store.recordSubmission(applicants[ThreadLocalRandom.current().nextInt(keyCount)], System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public String putHashIfAbsent() {
+        int i = ThreadLocalRandom.current().nextInt(keyCount);
+        return store.putHashIfAbsent(FraudStateStore.HashType.CONTENT, "hash-" + i, "SDCRS-" + i,
+                System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,82 @@
+package org.digit.fraud.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.digit.fraud.service.BulkRescoringService;
+import org.digit.fraud.service.RescoringSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command-line bulk re-scoring. Active only when {@code fraud.bulk.input} is set; the process
+ * exits once the input has been processed.
+ *
+ * <pre>
+ * java -jar fraud-detection-standalone-1.0.0-exec.jar \
+ *     --spring.main.web-application-type=none \
+ *     --logging.level.org.digit.fraud=WARN --logging.level.org.digit.fraud.cli=INFO \
+ *     --fraud.bulk.input=history.ndjson \
+ *     --fraud.bulk.output=rescored.ndjson \
+ *     --fraud.bulk.summary=rescored-summary.json
+ * </pre>
+ *
+ * Records are replayed in input order, each at its {@code createdTime}, so the input should be
+ * sorted by submission time. Only the internal rules are evaluated. The job keeps its fraud state
+ * in this process's own in-memory store, which starts empty, and does not start with
+ * {@code fraud.state.backend=mmap}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "fraud.bulk.input")
+public class BulkRescoringRunner implements ApplicationRunner {
+
+    private final BulkRescoringService bulkRescoringService;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${fraud.bulk.input}")
+    private String input;
+
+    @Value("${fraud.bulk.output}")
+    private String output;
+
+    @Value("${fraud.bulk.summary:}")
+    private String summaryPath;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        log.info("Bulk re-scoring {} into {}", input, output);
+        long start = System.currentTimeMillis();
+
+        RescoringSummary summary;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(input)), 1 << 16);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(Path.of(output)), 1 << 16)) {
+            summary = bulkRescoringService.rescore(in, out);
+        }
+
+        String summaryJson = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(summary.toMap());
+        if (summaryPath.isBlank()) {
+            log.info("Bulk re-scoring summary:\n{}", summaryJson);
+        } else {
+            Files.writeString(Path.of(summaryPath), summaryJson);
+        }
+        log.info("Bulk re-scoring finished: {} records in {} ms", summary.getRecords(),
+                System.currentTimeMillis() - start);
+
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
@@ -3,9 +3,14 @@ package org.digit.fraud.config;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.digit.fraud.service.ReplayClock;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Clock;
+
 @Configuration
 public class AppConfig {
 
@@ -16,4 +21,23 @@ public class AppConfig {
         mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         return mapper;
     }
+
+    /**
+     * The time rules evaluate at, moved by bulk re-scoring to each replayed submission.
+     * Declared before {@link #clock()} so that the condition there sees it.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fraud.bulk.input")
+    public ReplayClock replayClock() {
+        return new ReplayClock();
+    }
+
+    /**
+     * The time rules evaluate at, and state expires by.
+     */
+    @Bean
+    @ConditionalOnMissingBean(Clock.class)
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
 }
@@ -0,0 +1,143 @@
+package org.digit.fraud.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors used by the evaluation pipeline.
+ *
+ * Setting {@code spring.threads.virtual.enabled=true} on a Java 21+ runtime switches both the
+ * Tomcat request threads (via Spring Boot) and the external validator executor to virtual
+ * threads. On older runtimes the property is ignored and the platform-thread pool is used.
+ *
+ * Declaring Executor beans turns off Spring Boot's own {@code applicationTaskExecutor}, which
+ * Spring MVC would otherwise use for async requests such as the streamed batch response, so this
+ * class declares one under that name.
+ */
+@Slf4j
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Bounded pool used to fan out external validator calls for a single evaluation.
+     * Tasks rejected because the pool and queue are full are reported as skipped by the caller.
+     */
+    @Bean(name = "externalValidatorExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor externalValidatorExecutor(
+            @Value("${fraud.external.pool.size:16}") int poolSize,
+            @Value("${fraud.external.pool.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("external-validator-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        log.info("External validators run on platform threads (pool size {})", poolSize);
+        return executor;
+    }
+
+    /**
+     * CPU-bound pool for {@code /v1/_evaluateBatch}, sized to the number of cores by default.
+     * It stays on platform threads in virtual-thread mode because rule evaluation does not block.
+     * When every worker is busy and the queue is full the submitting thread runs the task itself,
+     * which throttles concurrent batches instead of failing them.
+     */
+    @Bean(name = "batchEvaluationExecutor")
+    public AsyncTaskExecutor batchEvaluationExecutor(
+            @Value("${fraud.batch.pool.size:0}") int poolSize,
+            @Value("${fraud.batch.max-in-flight:256}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("batch-evaluation-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        log.info("Batch evaluation runs on {} platform threads", threads);
+        return executor;
+    }
+
+    /**
+     * Runs {@code /v1/_evaluateAsync} jobs and the external stage of {@code /v1/_evaluateTiered}.
+     * Each task mostly waits on the external validator executor, so this pool only bounds how many
+     * are in progress; tasks that find the pool and queue full are rejected, async jobs are
+     * reported to the caller as such and tiered evaluations skip their external rules.
+     */
+    @Bean(name = "asyncEvaluationExecutor")
+    public AsyncTaskExecutor asyncEvaluationExecutor(
+            @Value("${fraud.async.pool.size:8}") int poolSize,
+            @Value("${fraud.async.pool.queue-capacity:1024}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("async-evaluation-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs Spring MVC async request processing, i.e. writing {@code /v1/_evaluateBatch} responses.
+     * Each stream can stay open for {@code spring.mvc.async.request-timeout}, so the pool bounds how
+     * many are written at once; batches beyond the pool and queue are rejected instead of each
+     * getting a new thread.
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor applicationTaskExecutor(
+            @Value("${fraud.web.async.pool.size:8}") int poolSize,
+            @Value("${fraud.web.async.pool.queue-capacity:32}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Virtual-thread counterpart of {@link #applicationTaskExecutor}; the concurrency limit
+     * throttles new streams once that many are being written.
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualApplicationTaskExecutor(
+            @Value("${fraud.web.async.virtual.concurrency-limit:256}") int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return executor;
+    }
+
+    /**
+     * One virtual thread per external validator call. Blocking on a slow validator no longer
+     * holds a platform thread; the concurrency limit throttles submitters instead of rejecting.
+     */
+    @Bean(name = "externalValidatorExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualExternalValidatorExecutor(
+            @Value("${fraud.external.virtual.concurrency-limit:1024}") int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("external-validator-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setTaskTerminationTimeout(5000);
+        log.info("External validators run on virtual threads (concurrency limit {})", concurrencyLimit);
+        return executor;
+    }
+}
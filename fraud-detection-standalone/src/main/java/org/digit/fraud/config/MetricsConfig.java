@@ -0,0 +1,41 @@
+package org.digit.fraud.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.digit.fraud.service.state.FraudStateStore;
+import org.digit.fraud.service.state.GeoGridIndex;
+import org.digit.fraud.service.state.LastPositionStore;
+import org.digit.fraud.service.state.PerceptualHashIndex;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * {@code fraud.state.entries}, tagged by store: live entries in each fraud state store and
+     * in the heap-only image hash, geo (cells, for the latter) and last position indexes.
+     */
+    @Bean
+    public MeterBinder fraudStateMetrics(FraudStateStore stateStore,
+                                         PerceptualHashIndex imageHashIndex,
+                                         GeoGridIndex geoIndex,
+                                         LastPositionStore positionStore) {
+        return registry -> {
+            for (String store : stateStore.sizes().keySet()) {
+                Gauge.builder("fraud.state.entries", stateStore, s -> s.sizes().getOrDefault(store, 0L))
+                        .tag("store", store)
+                        .register(registry);
+            }
+            Gauge.builder("fraud.state.entries", imageHashIndex, PerceptualHashIndex::size)
+                    .tag("store", "perceptualHashes")
+                    .register(registry);
+            Gauge.builder("fraud.state.entries", geoIndex, GeoGridIndex::size)
+                    .tag("store", "geoCells")
+                    .register(registry);
+            Gauge.builder("fraud.state.entries", positionStore, LastPositionStore::size)
+                    .tag("store", "lastPositions")
+                    .register(registry);
+        };
+    }
+}
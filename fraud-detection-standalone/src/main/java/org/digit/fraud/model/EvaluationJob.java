@@ -0,0 +1,34 @@
+package org.digit.fraud.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Handle for an asynchronous evaluation started through {@code /v1/_evaluateAsync}.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EvaluationJob {
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private String jobId;
+    private String applicationId;
+    private Status status;
+    private Long submittedAt;
+    private Long completedAt;
+    private String callbackUrl;
+    private FraudEvaluationResponse result;
+    private String error;
+}
@@ -0,0 +1,28 @@
+package org.digit.fraud.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Published on the application event bus for each stage of a tiered evaluation started through
+ * {@code /v1/_evaluateTiered}. All stages of one evaluation share the evaluationId.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EvaluationStageEvent {
+
+    private String evaluationId;
+    private String applicationId;
+    /** INTERNAL, EXTERNAL or FINAL */
+    private String stage;
+    /** For the EXTERNAL stage, the rule whose result was merged */
+    private String ruleCode;
+    /** The score merged over every stage so far */
+    private FraudEvaluationResponse response;
+}
@@ -23,6 +23,13 @@ public class FraudEvaluationRequest {
     private LocationData locationData;
     private List<EvidenceData> evidences;
     private Map<String, Object> additionalData;
+    /**
+     * When the application was submitted, epoch millis. Bulk re-scoring evaluates the request as of
+     * this time; live evaluations always use the current time.
+     */
+    private Long createdTime;
+    /** Return every rule's result rather than only triggered ones; null uses fraud.evaluation.verbose. */
+    private Boolean verbose;
 
     @Data
     @Builder
@@ -65,6 +72,8 @@ public class FraudEvaluationRequest {
         private String purpose;
         private String contentType;
         private String contentHash;
+        /** 64-bit perceptual hash (pHash or dHash) of the image as 16 hex digits. */
+        private String perceptualHash;
         private EvidenceMetadata metadata;
     }
 
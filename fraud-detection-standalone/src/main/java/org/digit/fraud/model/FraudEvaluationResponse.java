@@ -25,6 +25,11 @@ public class FraudEvaluationResponse {
     private Map<String, Integer> categoryScores;
     private Long evaluatedAt;
     private String evaluationType;
+    /** For TIERED evaluations, the last stage merged into this response: INTERNAL, EXTERNAL or FINAL. */
+    private String stage;
+    private Boolean partial;
+    /** Codes of the rules not evaluated because they could not change the recommendation. */
+    private List<String> skippedRules;
 
     @Data
     @Builder
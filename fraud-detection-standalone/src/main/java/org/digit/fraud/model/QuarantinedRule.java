@@ -0,0 +1,21 @@
+package org.digit.fraud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A rule left out of evaluation because it failed to compile when the MDMS data was loaded.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuarantinedRule {
+
+    private String ruleId;
+    private String ruleCode;
+    private String ruleName;
+    private String reason;
+}
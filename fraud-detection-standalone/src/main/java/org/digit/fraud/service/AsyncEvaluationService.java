@@ -0,0 +1,144 @@
+package org.digit.fraud.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.digit.fraud.model.EvaluationJob;
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.model.FraudEvaluationResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Runs external-rule evaluations in the background for {@code /v1/_evaluateAsync}.
+ *
+ * Jobs run on the bounded {@code asyncEvaluationExecutor}; when its queue is full new jobs are
+ * rejected rather than queued without limit, and the caller is expected to retry later. Job
+ * state lives in a Caffeine cache bounded by {@code fraud.async.store.max-size} and expired
+ * {@code fraud.async.store.ttl-minutes} after the last update. Each update replaces the cached
+ * job with a new immutable snapshot.
+ *
+ * If the caller supplied a callback URL that {@link CallbackAllowList matches} one of
+ * {@code fraud.async.callback.allowed-prefixes}, the finished job is POSTed to it once.
+ * Callback failures are logged and the result stays available for polling.
+ */
+@Slf4j
+@Service
+public class AsyncEvaluationService {
+
+    private final FraudDetectionService fraudDetectionService;
+    private final AsyncTaskExecutor executor;
+    private final Cache<String, EvaluationJob> jobs;
+    private final CallbackAllowList allowedCallbacks;
+    private final RestClient callbackClient;
+
+    public AsyncEvaluationService(FraudDetectionService fraudDetectionService,
+                                  @Qualifier("asyncEvaluationExecutor") AsyncTaskExecutor executor,
+                                  RestClient.Builder restClientBuilder,
+                                  @Value("${fraud.async.store.max-size:100000}") long maxJobs,
+                                  @Value("${fraud.async.store.ttl-minutes:60}") long ttlMinutes,
+                                  @Value("${fraud.async.callback.allowed-prefixes:}") List<String> allowedCallbackPrefixes,
+                                  @Value("${fraud.async.callback.timeout.ms:5000}") int callbackTimeoutMs) {
+        this.fraudDetectionService = fraudDetectionService;
+        this.executor = executor;
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(maxJobs)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+        this.allowedCallbacks = new CallbackAllowList(allowedCallbackPrefixes);
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(callbackTimeoutMs);
+        requestFactory.setReadTimeout(callbackTimeoutMs);
+        this.callbackClient = restClientBuilder.requestFactory(requestFactory).build();
+    }
+
+    /**
+     * Queue an external-rule evaluation.
+     *
+     * @param callbackUrl Optional URL to POST the finished job to
+     * @return the pending job
+     * @throws IllegalArgumentException if the callback URL is not allowed
+     * @throws TaskRejectedException if the executor is saturated
+     */
+    public EvaluationJob submit(FraudEvaluationRequest request, String callbackUrl) {
+        if (callbackUrl != null && !allowedCallbacks.allows(callbackUrl)) {
+            throw new IllegalArgumentException("Callback URL not allowed: " + callbackUrl);
+        }
+
+        EvaluationJob job = EvaluationJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .applicationId(request.getApplicationId())
+                .status(EvaluationJob.Status.PENDING)
+                .submittedAt(System.currentTimeMillis())
+                .callbackUrl(callbackUrl)
+                .build();
+        jobs.put(job.getJobId(), job);
+
+        try {
+            executor.execute(() -> run(job, request));
+        } catch (TaskRejectedException e) {
+            jobs.invalidate(job.getJobId());
+            log.warn("Async evaluation queue full, rejecting application {}", request.getApplicationId());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * @return the job, or null if it is unknown or has expired
+     */
+    public EvaluationJob getJob(String jobId) {
+        return jobs.getIfPresent(jobId);
+    }
+
+    private void run(EvaluationJob job, FraudEvaluationRequest request) {
+        jobs.put(job.getJobId(), job.toBuilder().status(EvaluationJob.Status.RUNNING).build());
+
+        EvaluationJob finished;
+        try {
+            FraudEvaluationResponse result = fraudDetectionService.evaluateExternalOnly(request);
+            finished = job.toBuilder()
+                    .status(EvaluationJob.Status.COMPLETED)
+                    .completedAt(System.currentTimeMillis())
+                    .result(result)
+                    .build();
+        } catch (RuntimeException e) {
+            log.error("Async evaluation {} failed: {}", job.getJobId(), e.getMessage());
+            finished = job.toBuilder()
+                    .status(EvaluationJob.Status.FAILED)
+                    .completedAt(System.currentTimeMillis())
+                    .error(e.getMessage())
+                    .build();
+        }
+        jobs.put(job.getJobId(), finished);
+
+        if (finished.getCallbackUrl() != null) {
+            sendCallback(finished);
+        }
+    }
+
+    private void sendCallback(EvaluationJob job) {
+        try {
+            callbackClient.post()
+                    .uri(URI.create(job.getCallbackUrl()))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(job)
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (RuntimeException e) {
+            log.warn("Callback for async evaluation {} to {} failed: {}",
+                    job.getJobId(), job.getCallbackUrl(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.digit.fraud.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.model.FraudEvaluationResponse;
+import org.digit.fraud.service.state.FraudStateStore;
+import org.digit.fraud.service.state.MappedFraudStateStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Re-scores historical submissions from newline-delimited JSON.
+ *
+ * Requests are pulled one at a time from a streaming parser and evaluated in input order on the
+ * calling thread, each as of its {@code createdTime}: the {@link ReplayClock} is moved there
+ * first, so the time-based rules, the submission history and state eviction see the records as
+ * they happened. A record without a createdTime is evaluated at the time of the record before it.
+ * Each response is written as one NDJSON line and folded into a {@link RescoringSummary}.
+ *
+ * Only the internal rules run; the external validators are not called for history, and the
+ * summary is marked with evaluationType {@code INTERNAL}. The replay builds up fraud state as
+ * live traffic would, so the service refuses to start on the persistent {@code mmap} backend.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "fraud.bulk.input")
+public class BulkRescoringService {
+
+    private static final String EVALUATION_TYPE = "INTERNAL";
+
+    private final FraudDetectionService fraudDetectionService;
+    private final ReplayClock clock;
+    private final ObjectMapper objectMapper;
+
+    public BulkRescoringService(FraudDetectionService fraudDetectionService,
+                                FraudStateStore stateStore,
+                                ReplayClock clock,
+                                ObjectMapper objectMapper) {
+        if (stateStore instanceof MappedFraudStateStore) {
+            throw new IllegalStateException(
+                    "Bulk re-scoring must not replay history into the persistent state; use fraud.state.backend=memory");
+        }
+        this.fraudDetectionService = fraudDetectionService;
+        this.clock = clock;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Evaluate every request in {@code in} and write the responses to {@code out}.
+     * Neither stream is closed. A request whose evaluation fails is logged and left out.
+     *
+     * @throws IOException if the input is not a sequence of JSON requests or the output fails
+     */
+    public RescoringSummary rescore(InputStream in, OutputStream out) throws IOException {
+        RescoringSummary summary = new RescoringSummary(EVALUATION_TYPE);
+        ObjectWriter writer = objectMapper.writerFor(FraudEvaluationResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(in);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+             MappingIterator<FraudEvaluationRequest> requests =
+                     objectMapper.readerFor(FraudEvaluationRequest.class).readValues(parser)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            while (requests.hasNext()) {
+                FraudEvaluationRequest request = requests.next();
+                if (request.getCreatedTime() != null) {
+                    clock.set(request.getCreatedTime());
+                }
+                FraudEvaluationResponse response;
+                try {
+                    response = fraudDetectionService.evaluateInternalOnly(request);
+                } catch (RuntimeException e) {
+                    log.error("Error re-scoring application {}: {}", request.getApplicationId(), e.getMessage());
+                    continue;
+                }
+                writer.writeValue(generator, response);
+                generator.writeRaw('\n');
+                summary.add(response);
+            }
+            generator.flush();
+        }
+        return summary;
+    }
+}
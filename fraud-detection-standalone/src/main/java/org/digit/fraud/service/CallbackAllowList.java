@@ -0,0 +1,81 @@
+package org.digit.fraud.service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The callback URLs {@code fraud.async.callback.allowed-prefixes} permits.
+ *
+ * Each prefix is parsed as a URL. A callback is allowed if its scheme, host and port equal a
+ * prefix's exactly and its normalised path is the prefix path or lies below it, so
+ * {@code https://sdcrs.internal/hooks} allows {@code https://sdcrs.internal/hooks/done} but not
+ * {@code https://sdcrs.internal.attacker.com/}, {@code https://sdcrs.internal@attacker.com/} or
+ * {@code https://sdcrs.internal/hooks-other}. Callbacks with user info are never allowed.
+ */
+final class CallbackAllowList {
+
+    private final List<Prefix> prefixes;
+
+    /**
+     * @throws IllegalArgumentException if a prefix is not an absolute http or https URL
+     */
+    CallbackAllowList(List<String> prefixes) {
+        this.prefixes = prefixes.stream()
+                .filter(prefix -> !prefix.isBlank())
+                .map(prefix -> {
+                    Prefix parsed = parse(prefix.trim());
+                    if (parsed == null) {
+                        throw new IllegalArgumentException("Invalid callback prefix: " + prefix);
+                    }
+                    return parsed;
+                })
+                .toList();
+    }
+
+    boolean allows(String callbackUrl) {
+        Prefix callback = parse(callbackUrl);
+        if (callback == null) {
+            return false;
+        }
+        for (Prefix prefix : prefixes) {
+            if (prefix.scheme.equals(callback.scheme) && prefix.host.equals(callback.host) &&
+                    prefix.port == callback.port &&
+                    (callback.path.equals(prefix.path) || callback.path.startsWith(directory(prefix.path)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String directory(String path) {
+        return path.endsWith("/") ? path : path + "/";
+    }
+
+    /**
+     * Null unless {@code url} is an absolute http(s) URL with a host and no user info.
+     */
+    private static Prefix parse(String url) {
+        URI uri;
+        try {
+            uri = new URI(url).normalize();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : null;
+        if (!("http".equals(scheme) || "https".equals(scheme)) || uri.getHost() == null ||
+                uri.getRawUserInfo() != null) {
+            return null;
+        }
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (path.startsWith("/..")) {
+            return null;
+        }
+        int port = uri.getPort() >= 0 ? uri.getPort() : "https".equals(scheme) ? 443 : 80;
+        return new Prefix(scheme, uri.getHost().toLowerCase(Locale.ROOT), port, path);
+    }
+
+    private record Prefix(String scheme, String host, int port, String path) {
+    }
+}
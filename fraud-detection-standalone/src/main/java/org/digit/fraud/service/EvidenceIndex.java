@@ -0,0 +1,128 @@
+package org.digit.fraud.service;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.model.FraudEvaluationRequest.EvidenceData;
+import org.digit.fraud.model.FraudEvaluationRequest.EvidenceMetadata;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A request's evidence, indexed in one pass for the internal rules.
+ *
+ * Evidence is grouped by purpose, the first DOG_PHOTO and SELFIE are kept with their GPS
+ * position and timestamp unboxed, and the request-wide facts several rules check (missing GPS,
+ * missing EXIF, the first device ID, the oldest timestamp) are computed up front. Built lazily
+ * by {@link PreparedRequest#getEvidence()}.
+ */
+@Getter
+public final class EvidenceIndex {
+
+    /** Timestamp value when none is recorded. */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final List<EvidenceData> all;
+    private final Map<String, List<EvidenceData>> byPurpose;
+    /** The first DOG_PHOTO evidence, or null. */
+    private final Located dogPhoto;
+    /** The first SELFIE evidence, or null. */
+    private final Located selfie;
+    /** True if any evidence lacks metadata or a GPS latitude. */
+    private final boolean gpsMissing;
+    /** True if any evidence lacks metadata or has no EXIF data. */
+    private final boolean exifMissing;
+    /** The first device ID found in evidence metadata, or null. */
+    private final String deviceId;
+    /** Oldest evidence timestamp, or {@link #NO_TIMESTAMP}. */
+    private final long oldestTimestamp;
+
+    EvidenceIndex(FraudEvaluationRequest request) {
+        this.all = request.getEvidences() != null ? request.getEvidences() : List.of();
+
+        Map<String, List<EvidenceData>> grouped = new HashMap<>();
+        Located firstDogPhoto = null;
+        Located firstSelfie = null;
+        boolean anyGpsMissing = false;
+        boolean anyExifMissing = false;
+        String firstDeviceId = null;
+        long oldest = NO_TIMESTAMP;
+
+        for (EvidenceData evidence : all) {
+            String purpose = evidence.getPurpose();
+            if (purpose != null) {
+                grouped.computeIfAbsent(purpose, p -> new ArrayList<>(2)).add(evidence);
+            }
+            if (firstDogPhoto == null && "DOG_PHOTO".equals(purpose)) {
+                firstDogPhoto = new Located(evidence);
+            } else if (firstSelfie == null && "SELFIE".equals(purpose)) {
+                firstSelfie = new Located(evidence);
+            }
+
+            EvidenceMetadata metadata = evidence.getMetadata();
+            if (metadata == null) {
+                anyGpsMissing = true;
+                anyExifMissing = true;
+                continue;
+            }
+            anyGpsMissing |= metadata.getGpsLatitude() == null;
+            anyExifMissing |= !Boolean.TRUE.equals(metadata.getExifPresent());
+            if (firstDeviceId == null) {
+                firstDeviceId = metadata.getDeviceId();
+            }
+            Long timestamp = metadata.getTimestamp();
+            if (timestamp != null && (oldest == NO_TIMESTAMP || timestamp < oldest)) {
+                oldest = timestamp;
+            }
+        }
+
+        this.byPurpose = grouped;
+        this.dogPhoto = firstDogPhoto;
+        this.selfie = firstSelfie;
+        this.gpsMissing = anyGpsMissing;
+        this.exifMissing = anyExifMissing;
+        this.deviceId = firstDeviceId;
+        this.oldestTimestamp = oldest;
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    /**
+     * Evidence with the given purpose, in request order; every evidence if {@code purpose} is null.
+     */
+    public List<EvidenceData> withPurpose(String purpose) {
+        if (purpose == null) {
+            return all;
+        }
+        return byPurpose.getOrDefault(purpose, List.of());
+    }
+
+    /**
+     * One evidence item with its GPS position and timestamp unboxed.
+     */
+    @Getter
+    public static final class Located {
+
+        private final EvidenceData evidence;
+        /** True if both GPS coordinates are present. */
+        private final boolean gps;
+        private final double latitude;
+        private final double longitude;
+        /** Capture time, or {@link #NO_TIMESTAMP}. */
+        private final long timestamp;
+
+        private Located(EvidenceData evidence) {
+            this.evidence = evidence;
+            EvidenceMetadata metadata = evidence.getMetadata();
+            this.gps = metadata != null && metadata.getGpsLatitude() != null && metadata.getGpsLongitude() != null;
+            this.latitude = gps ? metadata.getGpsLatitude() : Double.NaN;
+            this.longitude = gps ? metadata.getGpsLongitude() : Double.NaN;
+            this.timestamp = metadata != null && metadata.getTimestamp() != null ?
+                    metadata.getTimestamp() : NO_TIMESTAMP;
+        }
+    }
+}
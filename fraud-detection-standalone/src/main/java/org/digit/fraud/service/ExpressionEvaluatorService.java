@@ -1,15 +1,27 @@
 package org.digit.fraud.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.extern.slf4j.Slf4j;
 import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.service.rule.CompiledExpression;
+import org.digit.fraud.service.rule.dsl.RuleDsl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
-import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Spring Expression Language (SpEL) evaluator for dynamic fraud rule expressions.
@@ -29,12 +41,43 @@ import java.util.Map;
  * - additionalData: Map of custom key-value pairs
  * - predictions: Map of ML/AI prediction results (for external validators)
  * - metadata: Map of first evidence metadata
+ *
+ * Parsed expressions are kept in a bounded cache keyed by expression text. Rule expressions are
+ * parsed once by {@link #compile(String)} when MDMS data is loaded and evaluated through the
+ * returned {@link CompiledExpression} without a cache lookup. CUSTOM conditions are compiled
+ * with the sandboxed {@link RuleDsl} when {@code fraud.expression.dsl.enabled} is set, falling
+ * back to SpEL for expressions outside the DSL unless {@code fraud.expression.spel-fallback} is
+ * off. Unless {@code fraud.expression.compiler-mode} is
+ * {@code OFF}, each cached expression is compiled to bytecode after its first successful
+ * evaluation; expressions that cannot be compiled stay interpreted.
  */
 @Slf4j
 @Service
 public class ExpressionEvaluatorService {
 
-    private final ExpressionParser parser = new SpelExpressionParser();
+    private final SpelExpressionParser parser;
+    private final SpelCompilerMode compilerMode;
+    private final boolean dslEnabled;
+    private final boolean spelFallback;
+    private final Cache<String, CachedExpression> expressionCache;
+    private final AtomicLong compiledCount = new AtomicLong();
+    private final AtomicLong compileFailureCount = new AtomicLong();
+    private final AtomicLong dslCount = new AtomicLong();
+
+    public ExpressionEvaluatorService(@Value("${fraud.expression.cache.max-size:1000}") long cacheMaxSize,
+                                      @Value("${fraud.expression.compiler-mode:MIXED}") SpelCompilerMode compilerMode,
+                                      @Value("${fraud.expression.dsl.enabled:true}") boolean dslEnabled,
+                                      @Value("${fraud.expression.spel-fallback:true}") boolean spelFallback) {
+        this.compilerMode = compilerMode;
+        this.dslEnabled = dslEnabled;
+        this.spelFallback = spelFallback;
+        this.parser = new SpelExpressionParser(
+                new SpelParserConfiguration(compilerMode, getClass().getClassLoader()));
+        this.expressionCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .recordStats()
+                .build();
+    }
 
     /**
      * Evaluate a SpEL expression against a FraudEvaluationRequest.
@@ -56,14 +99,24 @@ public class ExpressionEvaluatorService {
      * @return true if expression evaluates to true, false otherwise
      */
     public boolean evaluate(String expression, FraudEvaluationRequest request, Map<String, Object> predictions) {
+        return evaluate(expression, new RequestEvaluationContext(request, predictions));
+    }
+
+    /**
+     * Evaluate a SpEL expression against a context from {@link #createContext(FraudEvaluationRequest)}.
+     *
+     * @param expression The SpEL expression string
+     * @param context The evaluation context shared by the request's expressions
+     * @return true if expression evaluates to true, false otherwise
+     */
+    public boolean evaluate(String expression, EvaluationContext context) {
         if (expression == null || expression.isBlank()) {
             log.warn("Empty expression provided, returning false");
             return false;
         }
 
         try {
-            EvaluationContext context = buildContext(request, predictions);
-            Expression exp = parser.parseExpression(expression);
+            CachedExpression exp = getExpression(expression);
             Boolean result = exp.getValue(context, Boolean.class);
 
             log.debug("Expression '{}' evaluated to: {}", expression, result);
@@ -76,110 +129,131 @@ public class ExpressionEvaluatorService {
     }
 
     /**
-     * Evaluate a SpEL expression and return the raw result (not just boolean).
-     * Useful for extracting values or complex calculations.
+     * Create a context for evaluating any number of expressions against one request.
+     * Variables are resolved lazily, so creating the context copies nothing.
      *
-     * @param expression The SpEL expression string
      * @param request The fraud evaluation request
-     * @param predictions Optional predictions map
-     * @param resultType The expected result type class
-     * @return The evaluation result or null on error
+     * @return A context to pass to {@link #evaluate(String, EvaluationContext)}
      */
-    public <T> T evaluateForValue(String expression, FraudEvaluationRequest request,
-                                   Map<String, Object> predictions, Class<T> resultType) {
-        if (expression == null || expression.isBlank()) {
-            return null;
+    public EvaluationContext createContext(FraudEvaluationRequest request) {
+        return createContext(request, System.currentTimeMillis());
+    }
+
+    /**
+     * Same as {@link #createContext(FraudEvaluationRequest)} with {@code #now} set to {@code now}.
+     */
+    public EvaluationContext createContext(FraudEvaluationRequest request, long now) {
+        return new RequestEvaluationContext(request, null, now);
+    }
+
+    /**
+     * Compile a CUSTOM rule condition: with the DSL if enabled and the expression fits it,
+     * otherwise with SpEL as {@link #compileSpel(String)} does.
+     *
+     * @param expression The condition
+     * @return The compiled condition
+     * @throws IllegalArgumentException if the expression is blank or invalid, or needs SpEL while the fallback is off
+     */
+    public CompiledExpression compile(String expression) {
+        if (dslEnabled) {
+            try {
+                CompiledExpression compiled = RuleDsl.compile(expression);
+                dslCount.incrementAndGet();
+                return compiled;
+            } catch (IllegalArgumentException e) {
+                if (!spelFallback) {
+                    throw e;
+                }
+                log.debug("Expression '{}' is outside the rule DSL, using SpEL: {}", expression, e.getMessage());
+            }
         }
+        return compileSpel(expression);
+    }
 
+    /**
+     * Parse and validate a SpEL expression for repeated evaluation. The result is shared with
+     * the cache, so evaluating the same text through {@link #evaluate(String, EvaluationContext)}
+     * reuses its compiled form.
+     *
+     * @param expression The SpEL expression
+     * @return The parsed expression
+     * @throws IllegalArgumentException if the expression is blank or not valid SpEL
+     */
+    public CompiledExpression compileSpel(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Empty expression");
+        }
         try {
-            EvaluationContext context = buildContext(request, predictions);
-            Expression exp = parser.parseExpression(expression);
-            return exp.getValue(context, resultType);
-        } catch (Exception e) {
-            log.error("Failed to evaluate expression '{}' for value: {}", expression, e.getMessage());
-            return null;
+            return getExpression(expression);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid expression '" + expression + "': " + e.getMessage(), e);
         }
     }
 
     /**
-     * Build the evaluation context with all available variables.
+     * Cache and compiler counters, for monitoring.
      */
-    private EvaluationContext buildContext(FraudEvaluationRequest request, Map<String, Object> predictions) {
-        StandardEvaluationContext context = new StandardEvaluationContext();
+    public Map<String, Object> getCacheStats() {
+        CacheStats stats = expressionCache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", expressionCache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("compiled", compiledCount.get());
+        result.put("compileFailures", compileFailureCount.get());
+        result.put("dslCompiled", dslCount.get());
+        result.put("compilerMode", compilerMode.name());
+        return result;
+    }
 
-        // Root object is the request itself
-        context.setRootObject(request);
+    private CachedExpression getExpression(String expression) {
+        return expressionCache.get(expression, text -> new CachedExpression(parser.parseExpression(text)));
+    }
 
-        // Set individual variables for easier access
-        context.setVariable("request", request);
+    /**
+     * A parsed expression that is compiled once, after it first evaluates successfully, so the
+     * compiler can use the operand types it has seen.
+     */
+    private final class CachedExpression implements CompiledExpression {
 
-        if (request.getApplicantInfo() != null) {
-            context.setVariable("applicantInfo", request.getApplicantInfo());
-            context.setVariable("applicantId", request.getApplicantInfo().getApplicantId());
-            context.setVariable("applicantName", request.getApplicantInfo().getName());
-            context.setVariable("deviceId", request.getApplicantInfo().getDeviceId());
-            context.setVariable("mobileNumber", request.getApplicantInfo().getMobileNumber());
-        }
+        private final Expression expression;
+        private final AtomicBoolean compileAttempted = new AtomicBoolean();
 
-        if (request.getLocationData() != null) {
-            context.setVariable("locationData", request.getLocationData());
-            context.setVariable("latitude", request.getLocationData().getLatitude());
-            context.setVariable("longitude", request.getLocationData().getLongitude());
-            context.setVariable("locality", request.getLocationData().getLocality());
+        private CachedExpression(Expression expression) {
+            this.expression = expression;
         }
 
-        if (request.getEvidences() != null) {
-            context.setVariable("evidences", request.getEvidences());
-            context.setVariable("evidenceCount", request.getEvidences().size());
-
-            // Extract first evidence metadata for convenience
-            if (!request.getEvidences().isEmpty() && request.getEvidences().get(0).getMetadata() != null) {
-                context.setVariable("metadata", request.getEvidences().get(0).getMetadata());
-            }
+        @Override
+        public String getText() {
+            return expression.getExpressionString();
         }
 
-        if (request.getAdditionalData() != null) {
-            context.setVariable("additionalData", request.getAdditionalData());
-
-            // Also expose individual additional data fields
-            for (Map.Entry<String, Object> entry : request.getAdditionalData().entrySet()) {
-                context.setVariable(entry.getKey(), entry.getValue());
-            }
+        @Override
+        public boolean matches(FraudEvaluationRequest request, Supplier<EvaluationContext> context) {
+            return Boolean.TRUE.equals(getValue(context.get(), Boolean.class));
         }
 
-        // Add predictions from external validators
-        if (predictions != null) {
-            context.setVariable("predictions", predictions);
-
-            // Also expose individual prediction fields
-            for (Map.Entry<String, Object> entry : predictions.entrySet()) {
-                context.setVariable(entry.getKey(), entry.getValue());
+        <T> T getValue(EvaluationContext context, Class<T> resultType) {
+            T value = expression.getValue(context, resultType);
+            if (compilerMode != SpelCompilerMode.OFF && compileAttempted.compareAndSet(false, true)) {
+                compile();
             }
+            return value;
         }
 
-        // Add useful constants
-        context.setVariable("now", System.currentTimeMillis());
-
-        return context;
-    }
-
-    /**
-     * Validate that an expression is syntactically correct without evaluating it.
-     *
-     * @param expression The SpEL expression to validate
-     * @return true if the expression is valid, false otherwise
-     */
-    public boolean isValidExpression(String expression) {
-        if (expression == null || expression.isBlank()) {
-            return false;
-        }
-
-        try {
-            parser.parseExpression(expression);
-            return true;
-        } catch (Exception e) {
-            log.warn("Invalid expression '{}': {}", expression, e.getMessage());
-            return false;
+        private void compile() {
+            boolean compiled = false;
+            try {
+                compiled = expression instanceof SpelExpression spel && spel.compileExpression();
+            } catch (RuntimeException e) {
+                log.debug("Compiling expression '{}' failed: {}", expression.getExpressionString(), e.getMessage());
+            }
+            if (compiled) {
+                compiledCount.incrementAndGet();
+            } else {
+                compileFailureCount.incrementAndGet();
+                log.debug("Expression '{}' is not compilable, staying interpreted", expression.getExpressionString());
+            }
         }
     }
 }
@@ -2,11 +2,11 @@ package org.digit.fraud.service;
 
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.digit.fraud.model.FraudEvaluationRequest;
 import org.digit.fraud.model.FraudEvaluationResponse.RuleResult;
-import org.digit.fraud.model.FraudRule;
+import org.digit.fraud.service.rule.CompiledExpression;
+import org.digit.fraud.service.rule.ExternalValidatorRule;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -25,32 +25,26 @@ import java.util.Random;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ExternalValidatorService {
 
-    private final MDMSService mdmsService;
-    private final ExpressionEvaluatorService expressionEvaluator;
     private final Random random = new Random();
 
     @CircuitBreaker(name = "externalValidator", fallbackMethod = "fallbackValidation")
     @Retry(name = "externalValidator")
-    public RuleResult validate(FraudRule rule, FraudEvaluationRequest request) {
-        Map<String, Object> condition = rule.getCondition();
-        String validatorId = (String) condition.get("validatorId");
-
-        log.debug("Running external validation: {} for rule {}", validatorId, rule.getCode());
-
-        return switch (validatorId) {
-            case "OBJECT_DETECTOR" -> simulateObjectDetection(rule, request, condition);
-            case "FACE_MATCHER" -> simulateFaceMatching(rule, request, condition);
-            case "IMAGE_QUALITY_ANALYZER" -> simulateImageQualityAnalysis(rule, request, condition);
-            case "ANOMALY_DETECTOR" -> simulateAnomalyDetection(rule, request, condition);
-            case "GPS_SPOOFING_DETECTOR" -> simulateGpsSpoofingDetection(rule, request, condition);
-            default -> createNotTriggeredResult(rule, "Unknown validator: " + validatorId);
+    public RuleResult validate(ExternalValidatorRule rule, FraudEvaluationRequest request) {
+        log.debug("Running external validation: {} for rule {}", rule.getValidatorId(), rule.getCode());
+
+        return switch (rule.getValidator()) {
+            case OBJECT_DETECTOR -> simulateObjectDetection(rule, request);
+            case FACE_MATCHER -> simulateFaceMatching(rule, request);
+            case IMAGE_QUALITY_ANALYZER -> simulateImageQualityAnalysis(rule, request);
+            case ANOMALY_DETECTOR -> simulateAnomalyDetection(rule, request);
+            case GPS_SPOOFING_DETECTOR -> simulateGpsSpoofingDetection(rule, request);
+            case UNKNOWN -> createNotTriggeredResult(rule, "Unknown validator: " + rule.getValidatorId());
         };
     }
 
-    private RuleResult simulateObjectDetection(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
+    private RuleResult simulateObjectDetection(ExternalValidatorRule rule, FraudEvaluationRequest request) {
         // Simulate object detection with high accuracy
         // 95% chance of detecting a dog (assuming valid submissions)
         boolean dogDetected = random.nextDouble() < 0.95;
@@ -62,15 +56,14 @@ public class ExternalValidatorService {
         predictions.put("catCount", 0);
         predictions.put("confidence", confidence);
 
-        String checkExpression = (String) condition.get("checkExpression");
-        if (checkExpression != null && !checkExpression.isBlank()) {
-            // Evaluate using SpEL - expression can reference predictions map
+        CompiledExpression check = rule.getCheck();
+        if (check != null) {
+            // The check can reference the predictions map
             // Example: "dogCount == 0" or "confidence < 0.5"
-            boolean triggered = expressionEvaluator.evaluate(checkExpression, request, predictions);
-            if (triggered) {
+            if (checkTriggers(rule, check, request, predictions)) {
                 return createTriggeredResult(rule,
-                        String.format("Object detection check failed: %s", checkExpression),
-                        Map.of("predictions", predictions, "confidence", confidence, "expression", checkExpression));
+                        String.format("Object detection check failed: %s", check.getText()),
+                        Map.of("predictions", predictions, "confidence", confidence, "expression", check.getText()));
             }
         }
 
@@ -78,7 +71,7 @@ public class ExternalValidatorService {
                 String.format("Dog detected (count: %d, confidence: %.2f)", dogCount, confidence));
     }
 
-    private RuleResult simulateFaceMatching(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
+    private RuleResult simulateFaceMatching(ExternalValidatorRule rule, FraudEvaluationRequest request) {
         // Simulate face detection and matching
         // 90% chance of face matching profile
         boolean faceDetected = random.nextDouble() < 0.98;
@@ -91,16 +84,15 @@ public class ExternalValidatorService {
         predictions.put("match", match);
         predictions.put("similarity", similarity);
 
-        String checkExpression = (String) condition.get("checkExpression");
-        if (checkExpression != null && !checkExpression.isBlank()) {
-            // Evaluate using SpEL - expression can reference predictions map
+        CompiledExpression check = rule.getCheck();
+        if (check != null) {
+            // The check can reference the predictions map
             // Example: "facesDetected == 0 || (match == false && similarity < 0.7)"
-            boolean triggered = expressionEvaluator.evaluate(checkExpression, request, predictions);
-            if (triggered) {
+            if (checkTriggers(rule, check, request, predictions)) {
                 String message = facesDetected == 0 ? "No face detected in selfie" :
                         !match ? "Face does not match profile photo" : "Face matching check failed";
                 return createTriggeredResult(rule, message,
-                        Map.of("predictions", predictions, "similarity", similarity, "expression", checkExpression));
+                        Map.of("predictions", predictions, "similarity", similarity, "expression", check.getText()));
             }
         }
 
@@ -108,7 +100,7 @@ public class ExternalValidatorService {
                 String.format("Face verification passed (similarity: %.2f)", similarity));
     }
 
-    private RuleResult simulateImageQualityAnalysis(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
+    private RuleResult simulateImageQualityAnalysis(ExternalValidatorRule rule, FraudEvaluationRequest request) {
         // Simulate image quality analysis
         double blurScore = 0.5 + (random.nextDouble() * 0.4);
         double exposureScore = 0.5 + (random.nextDouble() * 0.4);
@@ -121,16 +113,15 @@ public class ExternalValidatorService {
         predictions.put("overallQuality", overallQuality);
         predictions.put("isAcceptable", isAcceptable);
 
-        String checkExpression = (String) condition.get("checkExpression");
-        if (checkExpression != null && !checkExpression.isBlank()) {
-            // Evaluate using SpEL - expression can reference predictions map
+        CompiledExpression check = rule.getCheck();
+        if (check != null) {
+            // The check can reference the predictions map
             // Example: "blurScore < 0.2 || overallQuality < 0.4"
-            boolean triggered = expressionEvaluator.evaluate(checkExpression, request, predictions);
-            if (triggered) {
+            if (checkTriggers(rule, check, request, predictions)) {
                 String message = blurScore < 0.2 ? "Image too blurry" :
                         overallQuality < 0.4 ? "Poor image quality" : "Image quality check failed";
                 return createTriggeredResult(rule, message,
-                        Map.of("predictions", predictions, "expression", checkExpression));
+                        Map.of("predictions", predictions, "expression", check.getText()));
             }
         }
 
@@ -138,7 +129,7 @@ public class ExternalValidatorService {
                 String.format("Image quality acceptable (score: %.2f)", overallQuality));
     }
 
-    private RuleResult simulateAnomalyDetection(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
+    private RuleResult simulateAnomalyDetection(ExternalValidatorRule rule, FraudEvaluationRequest request) {
         // Simulate anomaly detection - 5% chance of flagging anomaly
         boolean isAnomaly = random.nextDouble() < 0.05;
         double anomalyScore = isAnomaly ? 0.7 + (random.nextDouble() * 0.3) : random.nextDouble() * 0.5;
@@ -147,14 +138,13 @@ public class ExternalValidatorService {
         predictions.put("isAnomaly", isAnomaly);
         predictions.put("anomalyScore", anomalyScore);
 
-        String checkExpression = (String) condition.get("checkExpression");
-        if (checkExpression != null && !checkExpression.isBlank()) {
-            // Evaluate using SpEL - expression can reference predictions map
+        CompiledExpression check = rule.getCheck();
+        if (check != null) {
+            // The check can reference the predictions map
             // Example: "isAnomaly == true && anomalyScore > 0.85"
-            boolean triggered = expressionEvaluator.evaluate(checkExpression, request, predictions);
-            if (triggered) {
+            if (checkTriggers(rule, check, request, predictions)) {
                 return createTriggeredResult(rule, "Anomalous submission pattern detected",
-                        Map.of("predictions", predictions, "anomalyScore", anomalyScore, "expression", checkExpression));
+                        Map.of("predictions", predictions, "anomalyScore", anomalyScore, "expression", check.getText()));
             }
         }
 
@@ -162,7 +152,7 @@ public class ExternalValidatorService {
                 String.format("No anomaly detected (score: %.2f)", anomalyScore));
     }
 
-    private RuleResult simulateGpsSpoofingDetection(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
+    private RuleResult simulateGpsSpoofingDetection(ExternalValidatorRule rule, FraudEvaluationRequest request) {
         // Simulate GPS spoofing detection - 2% chance of detecting spoofing
         boolean isSpoofed = random.nextDouble() < 0.02;
         double spoofingConfidence = isSpoofed ? 0.7 + (random.nextDouble() * 0.29) : random.nextDouble() * 0.3;
@@ -171,16 +161,15 @@ public class ExternalValidatorService {
         predictions.put("isSpoofed", isSpoofed);
         predictions.put("spoofingConfidence", spoofingConfidence);
 
-        String checkExpression = (String) condition.get("checkExpression");
-        if (checkExpression != null && !checkExpression.isBlank()) {
-            // Evaluate using SpEL - expression can reference predictions map
+        CompiledExpression check = rule.getCheck();
+        if (check != null) {
+            // The check can reference the predictions map
             // Example: "isSpoofed == true && spoofingConfidence > 0.6"
-            boolean triggered = expressionEvaluator.evaluate(checkExpression, request, predictions);
-            if (triggered) {
+            if (checkTriggers(rule, check, request, predictions)) {
                 String message = spoofingConfidence > 0.9 ? "GPS spoofing detected with high confidence" :
                         "Suspicious GPS pattern detected";
                 return createTriggeredResult(rule, message,
-                        Map.of("predictions", predictions, "expression", checkExpression));
+                        Map.of("predictions", predictions, "expression", check.getText()));
             }
         }
 
@@ -188,7 +177,21 @@ public class ExternalValidatorService {
                 String.format("GPS validation passed (spoofing score: %.2f)", spoofingConfidence));
     }
 
-    private RuleResult fallbackValidation(FraudRule rule, FraudEvaluationRequest request, Throwable t) {
+    /**
+     * Evaluate a rule's check against the validator's predictions; a check that fails to
+     * evaluate does not trigger the rule.
+     */
+    private boolean checkTriggers(ExternalValidatorRule rule, CompiledExpression check,
+                                  FraudEvaluationRequest request, Map<String, Object> predictions) {
+        try {
+            return check.matches(request, () -> new RequestEvaluationContext(request, predictions));
+        } catch (RuntimeException e) {
+            log.error("Failed to evaluate check '{}' of rule {}: {}", check.getText(), rule.getCode(), e.getMessage());
+            return false;
+        }
+    }
+
+    private RuleResult fallbackValidation(ExternalValidatorRule rule, FraudEvaluationRequest request, Throwable t) {
         log.warn("External validation failed for rule {}, using fallback: {}",
                 rule.getCode(), t.getMessage());
 
@@ -205,10 +208,7 @@ public class ExternalValidatorService {
                 .build();
     }
 
-    private RuleResult createTriggeredResult(FraudRule rule, String message, Map<String, Object> details) {
-        Integer weight = mdmsService.getCategoryWeight(rule.getCategory());
-        Integer score = calculateRuleScore(rule, weight);
-
+    private RuleResult createTriggeredResult(ExternalValidatorRule rule, String message, Map<String, Object> details) {
         return RuleResult.builder()
                 .ruleId(rule.getId())
                 .ruleCode(rule.getCode())
@@ -216,13 +216,13 @@ public class ExternalValidatorService {
                 .category(rule.getCategory())
                 .severity(rule.getSeverity())
                 .triggered(true)
-                .score(score)
+                .score(rule.getScore())
                 .message(message)
                 .details(details)
                 .build();
     }
 
-    private RuleResult createNotTriggeredResult(FraudRule rule, String message) {
+    private RuleResult createNotTriggeredResult(ExternalValidatorRule rule, String message) {
         return RuleResult.builder()
                 .ruleId(rule.getId())
                 .ruleCode(rule.getCode())
@@ -235,15 +235,4 @@ public class ExternalValidatorService {
                 .details(Map.of())
                 .build();
     }
-
-    private Integer calculateRuleScore(FraudRule rule, Integer categoryWeight) {
-        int severityMultiplier = switch (rule.getSeverity()) {
-            case "CRITICAL" -> 4;
-            case "HIGH" -> 3;
-            case "MEDIUM" -> 2;
-            case "LOW" -> 1;
-            default -> 1;
-        };
-        return (categoryWeight * severityMultiplier) / 4;
-    }
 }
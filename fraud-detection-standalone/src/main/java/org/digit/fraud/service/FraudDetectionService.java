@@ -5,12 +5,24 @@ import lombok.extern.slf4j.Slf4j;
 import org.digit.fraud.model.FraudEvaluationRequest;
 import org.digit.fraud.model.FraudEvaluationResponse;
 import org.digit.fraud.model.FraudEvaluationResponse.RuleResult;
-import org.digit.fraud.model.FraudRule;
-import org.digit.fraud.model.RiskScoreConfig;
+import org.digit.fraud.service.rule.CompiledRule;
+import org.digit.fraud.service.rule.ExternalValidatorRule;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -18,9 +30,33 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FraudDetectionService {
 
+    private static final String STAGE_INTERNAL = "INTERNAL";
+    private static final String STAGE_EXTERNAL = "EXTERNAL";
+    private static final String STAGE_FINAL = "FINAL";
+
     private final MDMSService mdmsService;
     private final InternalRuleEvaluator internalRuleEvaluator;
     private final ExternalValidatorService externalValidatorService;
+    private final RuleStatistics ruleStatistics;
+    private final Clock clock;
+
+    @Qualifier("externalValidatorExecutor")
+    private final AsyncTaskExecutor externalValidatorExecutor;
+
+    @Qualifier("batchEvaluationExecutor")
+    private final AsyncTaskExecutor batchEvaluationExecutor;
+
+    @Value("${fraud.batch.max-in-flight:256}")
+    private int batchMaxInFlight;
+
+    @Value("${fraud.external.deadline.ms:10000}")
+    private long externalDeadlineMs;
+
+    @Value("${fraud.evaluation.short-circuit:false}")
+    private boolean shortCircuit;
+
+    @Value("${fraud.evaluation.verbose:false}")
+    private boolean verboseByDefault;
 
     @Value("${fraud.score.threshold.approve:20}")
     private int approveThreshold;
@@ -45,110 +81,404 @@ public class FraudDetectionService {
      */
     public FraudEvaluationResponse evaluate(FraudEvaluationRequest request) {
         log.info("Starting full fraud evaluation for application: {}", request.getApplicationId());
+        return evaluateStages(request, moduleRules(request), true, true, "FULL");
+    }
 
-        String moduleCode = request.getModuleCode() != null ? request.getModuleCode() : "SDCRS";
-        List<FraudRule> allRules = mdmsService.getRulesForModule(moduleCode);
+    /**
+     * Internal rules only - synchronous, fast evaluation
+     */
+    public FraudEvaluationResponse evaluateInternalOnly(FraudEvaluationRequest request) {
+        log.info("Starting internal-only fraud evaluation for application: {}", request.getApplicationId());
+        return evaluateStages(request, moduleRules(request), true, false, "INTERNAL");
+    }
 
-        log.debug("Found {} enabled rules for module {}", allRules.size(), moduleCode);
+    /**
+     * External rules only - for async/ML-based evaluation
+     */
+    public FraudEvaluationResponse evaluateExternalOnly(FraudEvaluationRequest request) {
+        log.info("Starting external-only fraud evaluation for application: {}", request.getApplicationId());
+        return evaluateStages(request, moduleRules(request), false, true, "EXTERNAL");
+    }
 
+    /**
+     * Tiered evaluation: the internal rules are scored on the calling thread and that provisional
+     * response is returned, while the external rules run on {@code background} and are merged into
+     * the score one validator result at a time.
+     *
+     * {@code listener} receives every stage, all with the same evaluationId and evaluationType
+     * {@code TIERED}: the {@code INTERNAL} response before this method returns, an {@code EXTERNAL}
+     * response after each validator result, and a last {@code FINAL} response that is partial if a
+     * validator was skipped. Without external rules, or once the internal stage has decided the
+     * recommendation under {@code fraud.evaluation.short-circuit}, the only stage is {@code FINAL}.
+     * If {@code background} rejects the work, the external rules are reported as skipped.
+     */
+    public FraudEvaluationResponse evaluateTiered(FraudEvaluationRequest request,
+                                                  Executor background,
+                                                  StageListener listener) {
+        log.info("Starting tiered fraud evaluation for application: {}", request.getApplicationId());
+
+        ModuleRules rules = moduleRules(request);
+        List<CompiledRule> internalRules = rules.getInternal();
+        List<ExternalValidatorRule> externalRules = rules.getExternal();
+        String evaluationId = UUID.randomUUID().toString();
         List<RuleResult> results = new ArrayList<>();
 
-        // Evaluate internal rules
-        List<FraudRule> internalRules = allRules.stream()
-                .filter(r -> "INTERNAL".equals(r.getRuleType()))
-                .collect(Collectors.toList());
+        OutcomeBound bound = newOutcomeBound(internalRules, externalRules);
 
-        for (FraudRule rule : internalRules) {
-            try {
-                RuleResult result = internalRuleEvaluator.evaluate(rule, request);
-                results.add(result);
-                if (result.isTriggered()) {
-                    log.info("Rule triggered: {} - {}", rule.getCode(), result.getMessage());
+        evaluateInternalRules(rules, request, results, bound);
+
+        if (externalRules.isEmpty() || (bound != null && bound.isDecided())) {
+            boolean complete = evaluateExternalRules(externalRules, request, results, bound, null);
+            FraudEvaluationResponse response = stageResponse(request, evaluationId, results, STAGE_FINAL, complete, bound);
+            listener.onStage(response, null);
+            return response;
+        }
+
+        FraudEvaluationResponse provisional = stageResponse(request, evaluationId, results, STAGE_INTERNAL, false, bound);
+        listener.onStage(provisional, null);
+
+        try {
+            background.execute(() -> {
+                try {
+                    boolean complete = evaluateExternalRules(externalRules, request, results, bound, rule ->
+                            listener.onStage(stageResponse(request, evaluationId, results, STAGE_EXTERNAL, false, bound),
+                                    rule.getCode()));
+                    listener.onStage(stageResponse(request, evaluationId, results, STAGE_FINAL, complete, bound), null);
+                } catch (RuntimeException e) {
+                    log.error("Tiered evaluation {} failed in the external stage: {}", evaluationId, e.getMessage());
                 }
-            } catch (Exception e) {
-                log.error("Error evaluating rule {}: {}", rule.getCode(), e.getMessage());
-            }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Tiered evaluation queue full, skipping external rules for application {}",
+                    request.getApplicationId());
+            externalRules.forEach(rule ->
+                    results.add(createSkippedResult(rule, "External validation capacity exhausted - skipped")));
+            listener.onStage(stageResponse(request, evaluationId, results, STAGE_FINAL, false, bound), null);
         }
+        return provisional;
+    }
 
-        // Evaluate external rules
-        List<FraudRule> externalRules = allRules.stream()
-                .filter(r -> "EXTERNAL".equals(r.getRuleType()))
-                .collect(Collectors.toList());
+    /**
+     * Receives each stage of a {@link #evaluateTiered tiered evaluation}.
+     */
+    @FunctionalInterface
+    public interface StageListener {
+
+        /**
+         * @param response the score merged over every stage so far
+         * @param ruleCode the external rule whose result was just merged, null for the other stages
+         */
+        void onStage(FraudEvaluationResponse response, String ruleCode);
+    }
 
-        for (FraudRule rule : externalRules) {
-            try {
-                RuleResult result = externalValidatorService.validate(rule, request);
-                results.add(result);
-                if (result.isTriggered()) {
-                    log.info("External rule triggered: {} - {}", rule.getCode(), result.getMessage());
+    /**
+     * Internal rules only, for many requests at once.
+     *
+     * Requests are evaluated in parallel on the batch executor and each response is passed to
+     * {@code sink} on the calling thread as soon as it is ready, in completion order. At most {@code fraud.batch.max-in-flight} requests are
+     * submitted ahead of the results consumed so far.
+     *
+     * @return the number of responses passed to the sink
+     */
+    public int evaluateBatch(List<FraudEvaluationRequest> requests, Consumer<FraudEvaluationResponse> sink) {
+        log.info("Starting batch fraud evaluation of {} applications", requests.size());
+        return evaluateBatch(requests.iterator(), sink);
+    }
+
+    /**
+     * Same as {@link #evaluateBatch(List, Consumer)}, pulling requests from {@code requests} only
+     * as capacity frees up, so an unbounded input is evaluated in bounded memory.
+     *
+     * If the sink or the iterator throws, e.g. because the client disconnected or sent a malformed
+     * line, requests not yet started are cancelled before the exception propagates; those already
+     * running finish, since a half-applied state update would be worse than a wasted evaluation.
+     */
+    public int evaluateBatch(Iterator<FraudEvaluationRequest> requests, Consumer<FraudEvaluationResponse> sink) {
+        CompletionService<FraudEvaluationResponse> completionService =
+                new ExecutorCompletionService<>(batchEvaluationExecutor);
+        Set<Future<FraudEvaluationResponse>> pending = new HashSet<>();
+
+        int submitted = 0;
+        int completed = 0;
+        try {
+            while (requests.hasNext()) {
+                FraudEvaluationRequest request = requests.next();
+                ModuleRules rules = moduleRules(request);
+                pending.add(completionService.submit(() -> evaluateStages(request, rules, true, false, "INTERNAL")));
+                submitted++;
+                if (pending.size() >= batchMaxInFlight) {
+                    completed += emit(completionService.take(), pending, sink);
                 }
-            } catch (Exception e) {
-                log.error("Error evaluating external rule {}: {}", rule.getCode(), e.getMessage());
+            }
+            while (!pending.isEmpty()) {
+                completed += emit(completionService.take(), pending, sink);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Batch evaluation interrupted after {} of {} applications", completed, submitted);
+        } finally {
+            if (!pending.isEmpty()) {
+                log.warn("Batch evaluation stopped, cancelling {} outstanding applications", pending.size());
+                pending.forEach(future -> future.cancel(false));
             }
         }
 
-        return buildResponse(request, results, "FULL");
+        log.info("Batch fraud evaluation complete: {} of {} applications evaluated", completed, submitted);
+        return completed;
+    }
+
+    private int emit(Future<FraudEvaluationResponse> future, Set<Future<FraudEvaluationResponse>> pending,
+                     Consumer<FraudEvaluationResponse> sink) throws InterruptedException {
+        pending.remove(future);
+        try {
+            sink.accept(future.get());
+            return 1;
+        } catch (ExecutionException e) {
+            log.error("Error evaluating batch application: {}", e.getCause().getMessage());
+            return 0;
+        }
+    }
+
+    private ModuleRules moduleRules(FraudEvaluationRequest request) {
+        String moduleCode = request.getModuleCode() != null ? request.getModuleCode() : "SDCRS";
+        ModuleRules rules = mdmsService.getModuleRules(moduleCode);
+        log.debug("Found {} enabled rules for module {}", rules.getAll().size(), moduleCode);
+        return rules;
     }
 
     /**
-     * Internal rules only - synchronous, fast evaluation
+     * Run the internal stage, the external stage or both over {@code rules} and score the results together.
      */
-    public FraudEvaluationResponse evaluateInternalOnly(FraudEvaluationRequest request) {
-        log.info("Starting internal-only fraud evaluation for application: {}", request.getApplicationId());
+    private FraudEvaluationResponse evaluateStages(FraudEvaluationRequest request,
+                                                   ModuleRules rules,
+                                                   boolean internal,
+                                                   boolean external,
+                                                   String evaluationType) {
+        List<CompiledRule> internalRules = internal ? rules.getInternal() : List.of();
+        List<ExternalValidatorRule> externalRules = external ? rules.getExternal() : List.of();
 
-        String moduleCode = request.getModuleCode() != null ? request.getModuleCode() : "SDCRS";
-        List<FraudRule> internalRules = mdmsService.getInternalRules(moduleCode);
+        List<RuleResult> results = new ArrayList<>(internalRules.size());
 
-        log.debug("Found {} internal rules for module {}", internalRules.size(), moduleCode);
+        OutcomeBound bound = newOutcomeBound(internalRules, externalRules);
 
-        List<RuleResult> results = new ArrayList<>();
+        if (internal) {
+            evaluateInternalRules(rules, request, results, bound);
+        }
+
+        boolean complete = evaluateExternalRules(externalRules, request, results, bound, null);
+
+        return buildResponse(request, UUID.randomUUID().toString(), results, evaluationType, null, complete, bound);
+    }
+
+    /**
+     * A tiered stage response over a copy of {@code results}, which the external stage keeps appending to.
+     */
+    private FraudEvaluationResponse stageResponse(FraudEvaluationRequest request,
+                                                  String evaluationId,
+                                                  List<RuleResult> results,
+                                                  String stage,
+                                                  boolean complete,
+                                                  OutcomeBound bound) {
+        return buildResponse(request, evaluationId, new ArrayList<>(results), "TIERED", stage, complete, bound);
+    }
 
-        for (FraudRule rule : internalRules) {
+    /**
+     * Bookkeeping for {@code fraud.evaluation.short-circuit}, or null when every rule is evaluated.
+     */
+    private OutcomeBound newOutcomeBound(List<CompiledRule> internalRules,
+                                         List<ExternalValidatorRule> externalRules) {
+        if (!shortCircuit) {
+            return null;
+        }
+        OutcomeBound bound = new OutcomeBound(approveThreshold, autoRejectThreshold);
+        bound.expect(internalRules);
+        bound.expect(externalRules);
+        return bound;
+    }
+
+    /**
+     * Evaluate the internal rules of {@code rules} in order, sharing one {@link PreparedRequest},
+     * then record the submission in the fraud state. All rules evaluate the request as of one
+     * reading of the application clock.
+     *
+     * With a {@code bound}, rules run in the order ranked by {@link RuleStatistics}, cheap rules
+     * that often trigger first; once the recommendation is decided the remaining rules are
+     * skipped, except those that update the fraud state.
+     *
+     * Only triggered results are added to {@code results} unless the request is verbose.
+     */
+    private void evaluateInternalRules(ModuleRules rules,
+                                       FraudEvaluationRequest request,
+                                       List<RuleResult> results,
+                                       OutcomeBound bound) {
+        boolean verbose = isVerbose(request);
+        PreparedRequest prepared = new PreparedRequest(request, verbose, clock.millis());
+        List<CompiledRule> ordered = bound != null ? ruleStatistics.evaluationOrder(rules) : rules.getInternal();
+        for (CompiledRule rule : ordered) {
+            if (bound != null && bound.isDecided() && !rule.getConditionType().recordsState()) {
+                bound.skip(rule);
+                continue;
+            }
+            RuleResult result = null;
+            long start = System.nanoTime();
             try {
-                RuleResult result = internalRuleEvaluator.evaluate(rule, request);
-                results.add(result);
+                result = internalRuleEvaluator.evaluate(rule, prepared);
+                ruleStatistics.record(rule, System.nanoTime() - start, result);
                 if (result.isTriggered()) {
+                    results.add(result);
                     log.info("Rule triggered: {} - {}", rule.getCode(), result.getMessage());
+                } else if (verbose) {
+                    results.add(result);
                 }
             } catch (Exception e) {
+                ruleStatistics.record(rule, System.nanoTime() - start, null);
                 log.error("Error evaluating rule {}: {}", rule.getCode(), e.getMessage());
             }
+            if (bound != null) {
+                bound.record(rule, result);
+            }
         }
 
-        return buildResponse(request, results, "INTERNAL");
+        internalRuleEvaluator.recordSubmission(prepared);
     }
 
     /**
-     * External rules only - for async/ML-based evaluation
+     * Run all external rules concurrently and merge their results as they complete, waiting up to
+     * the per-request deadline. Validators that have not answered by then are cancelled and reported
+     * as skipped, so the latency of this stage is bounded by the slowest validator rather than the
+     * sum of all of them.
+     *
+     * With a {@code bound}, no validator is called if the recommendation is already decided, and
+     * the validators still running are cancelled as soon as it is. Rules skipped this way do not
+     * make the result partial.
+     *
+     * @param onResult if not null, called with the rule after each validator result is merged
+     * @return true if every validator returned a result, false if the score is partial
      */
-    public FraudEvaluationResponse evaluateExternalOnly(FraudEvaluationRequest request) {
-        log.info("Starting external-only fraud evaluation for application: {}", request.getApplicationId());
-
-        String moduleCode = request.getModuleCode() != null ? request.getModuleCode() : "SDCRS";
-        List<FraudRule> externalRules = mdmsService.getExternalRules(moduleCode);
+    private boolean evaluateExternalRules(List<ExternalValidatorRule> externalRules,
+                                          FraudEvaluationRequest request,
+                                          List<RuleResult> results,
+                                          OutcomeBound bound,
+                                          Consumer<ExternalValidatorRule> onResult) {
+        if (bound != null && bound.isDecided()) {
+            externalRules.forEach(bound::skip);
+            return true;
+        }
 
-        log.debug("Found {} external rules for module {}", externalRules.size(), moduleCode);
+        boolean verbose = isVerbose(request);
+        boolean complete = true;
+        CompletionService<RuleResult> completionService = new ExecutorCompletionService<>(externalValidatorExecutor);
+        Map<Future<RuleResult>, ExternalValidatorRule> pending = new LinkedHashMap<>();
+        for (ExternalValidatorRule rule : externalRules) {
+            try {
+                pending.put(completionService.submit(() -> validateExternal(rule, request)), rule);
+            } catch (TaskRejectedException e) {
+                log.warn("External validator pool saturated, skipping rule {}", rule.getCode());
+                results.add(createSkippedResult(rule, "External validation capacity exhausted - skipped"));
+                complete = false;
+                if (bound != null) {
+                    bound.record(rule, null);
+                }
+            }
+        }
 
-        List<RuleResult> results = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(externalDeadlineMs);
 
-        for (FraudRule rule : externalRules) {
-            try {
-                RuleResult result = externalValidatorService.validate(rule, request);
-                results.add(result);
-                if (result.isTriggered()) {
-                    log.info("External rule triggered: {} - {}", rule.getCode(), result.getMessage());
+        try {
+            while (!pending.isEmpty()) {
+                if (bound != null && bound.isDecided()) {
+                    pending.forEach((future, rule) -> {
+                        future.cancel(true);
+                        bound.skip(rule);
+                    });
+                    break;
+                }
+                Future<RuleResult> future = completionService.poll(
+                        Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    pending.values().forEach(rule ->
+                            log.warn("External rule {} did not finish within {} ms", rule.getCode(), externalDeadlineMs));
+                    skipPending(pending, results, bound, "External validation timed out - skipped");
+                    return false;
+                }
+                ExternalValidatorRule rule = pending.remove(future);
+                RuleResult result = null;
+                try {
+                    result = future.get();
+                    if (result.isTriggered()) {
+                        results.add(result);
+                        log.info("External rule triggered: {} - {}", rule.getCode(), result.getMessage());
+                    } else if (verbose) {
+                        results.add(result);
+                    }
+                } catch (ExecutionException e) {
+                    log.error("Error evaluating external rule {}: {}", rule.getCode(), e.getCause().getMessage());
+                }
+                if (bound != null) {
+                    bound.record(rule, result);
+                }
+                if (onResult != null) {
+                    onResult.accept(rule);
                 }
-            } catch (Exception e) {
-                log.error("Error evaluating external rule {}: {}", rule.getCode(), e.getMessage());
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            skipPending(pending, results, bound, "External validation interrupted - skipped");
+            return false;
         }
+        return complete;
+    }
+
+    private void skipPending(Map<Future<RuleResult>, ExternalValidatorRule> pending,
+                             List<RuleResult> results,
+                             OutcomeBound bound,
+                             String message) {
+        pending.forEach((future, rule) -> {
+            future.cancel(true);
+            results.add(createSkippedResult(rule, message));
+            if (bound != null) {
+                bound.record(rule, null);
+            }
+        });
+    }
 
-        return buildResponse(request, results, "EXTERNAL");
+    private boolean isVerbose(FraudEvaluationRequest request) {
+        return request.getVerbose() != null ? request.getVerbose() : verboseByDefault;
+    }
+
+    private RuleResult validateExternal(ExternalValidatorRule rule, FraudEvaluationRequest request) {
+        long start = System.nanoTime();
+        try {
+            RuleResult result = externalValidatorService.validate(rule, request);
+            ruleStatistics.record(rule, System.nanoTime() - start, result);
+            return result;
+        } catch (RuntimeException e) {
+            ruleStatistics.record(rule, System.nanoTime() - start, null);
+            throw e;
+        }
+    }
+
+    private RuleResult createSkippedResult(ExternalValidatorRule rule, String message) {
+        return RuleResult.builder()
+                .ruleId(rule.getId())
+                .ruleCode(rule.getCode())
+                .ruleName(rule.getName())
+                .category(rule.getCategory())
+                .severity(rule.getSeverity())
+                .triggered(false)
+                .score(0)
+                .message(message)
+                .details(Map.of("skipped", true))
+                .build();
     }
 
     private FraudEvaluationResponse buildResponse(FraudEvaluationRequest request,
+                                                   String evaluationId,
                                                    List<RuleResult> results,
-                                                   String evaluationType) {
+                                                   String evaluationType,
+                                                   String stage,
+                                                   boolean complete,
+                                                   OutcomeBound bound) {
         // Calculate total score
         int totalScore = results.stream()
                 .filter(RuleResult::isTriggered)
@@ -172,9 +502,6 @@ public class FraudDetectionService {
         // Determine recommendation
         String recommendation = determineRecommendation(totalScore, results);
 
-        // Generate evaluation ID
-        String evaluationId = UUID.randomUUID().toString();
-
         log.info("Fraud evaluation complete for {}: score={}, risk={}, recommendation={}",
                 request.getApplicationId(), totalScore, riskLevel, recommendation);
 
@@ -188,6 +515,9 @@ public class FraudDetectionService {
                 .categoryScores(categoryScores)
                 .evaluatedAt(System.currentTimeMillis())
                 .evaluationType(evaluationType)
+                .stage(stage)
+                .partial(!complete)
+                .skippedRules(bound != null ? List.copyOf(bound.getSkipped()) : null)
                 .build();
     }
 
@@ -4,447 +4,530 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.digit.fraud.model.FraudEvaluationRequest;
 import org.digit.fraud.model.FraudEvaluationResponse.RuleResult;
-import org.digit.fraud.model.FraudRule;
+import org.digit.fraud.service.rule.*;
+import org.digit.fraud.service.state.FraudStateStore;
+import org.digit.fraud.service.state.GeoGridIndex;
+import org.digit.fraud.service.state.LastPositionStore;
+import org.digit.fraud.service.state.LastPositionStore.KeyType;
+import org.digit.fraud.service.state.PerceptualHashIndex;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
+import java.time.Clock;
+import java.time.DayOfWeek;
 import java.time.Instant;
 import java.time.LocalTime;
-import java.time.ZoneId;
-import java.util.HashMap;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class InternalRuleEvaluator {
 
-    private final MDMSService mdmsService;
     private final ExpressionEvaluatorService expressionEvaluator;
+    private final FraudStateStore stateStore;
+    private final PerceptualHashIndex imageHashIndex;
+    private final GeoGridIndex geoIndex;
+    private final LastPositionStore positionStore;
+    private final Clock clock;
+
+    /**
+     * Record the request in the submission history once all internal rules have run, so that
+     * VELOCITY, INTERVAL, AGGREGATE_COUNT, GEO_CLUSTER and GPS_VELOCITY rules see the same
+     * history regardless of their order. The submission is recorded at {@link PreparedRequest#getNow()}.
+     */
+    public void recordSubmission(PreparedRequest prepared) {
+        FraudEvaluationRequest request = prepared.getRequest();
+        long now = prepared.getNow();
+        String applicantId = request.getApplicantInfo() != null ?
+                request.getApplicantInfo().getApplicantId() : null;
+        if (applicantId != null) {
+            stateStore.recordSubmission(applicantId, now);
+        }
+        FraudEvaluationRequest.LocationData location = request.getLocationData();
+        if (location != null && location.getLatitude() != null && location.getLongitude() != null) {
+            double latitude = location.getLatitude();
+            double longitude = location.getLongitude();
+            geoIndex.record(latitude, longitude, now);
+            if (applicantId != null) {
+                positionStore.put(KeyType.APPLICANT, applicantId, latitude, longitude, now);
+            }
+            String deviceId = deviceId(prepared);
+            if (deviceId != null) {
+                positionStore.put(KeyType.DEVICE, deviceId, latitude, longitude, now);
+            }
+        }
+    }
 
-    // In-memory stores for velocity/duplicate checks (would be Redis/DB in production)
-    private final Map<String, List<Long>> submissionTimestamps = new ConcurrentHashMap<>();
-    private final Map<String, String> contentHashes = new ConcurrentHashMap<>();
-    private final Map<String, String> imageHashes = new ConcurrentHashMap<>();
-    private final Map<String, List<String>> deviceUsers = new ConcurrentHashMap<>();
+    @Scheduled(fixedDelayString = "${fraud.state.eviction.interval.ms:300000}")
+    public void evictExpiredState() {
+        long now = clock.millis();
+        int evicted = stateStore.evictExpired(now) + imageHashIndex.evictExpired(now) + geoIndex.evictExpired(now) +
+                positionStore.evictExpired(now);
+        if (evicted > 0) {
+            log.debug("Evicted {} expired fraud state entries, remaining: {}", evicted, stateStore.sizes());
+            log.debug("Perceptual hash index size: {}, geo grid cells: {}, last positions: {}",
+                    imageHashIndex.size(), geoIndex.size(), positionStore.size());
+        }
+    }
 
-    public RuleResult evaluate(FraudRule rule, FraudEvaluationRequest request) {
-        Map<String, Object> condition = rule.getCondition();
-        String conditionType = (String) condition.get("type");
+    public RuleResult evaluate(CompiledRule rule, FraudEvaluationRequest request) {
+        return evaluate(rule, new PreparedRequest(request, true, clock.millis()));
+    }
 
+    /**
+     * Evaluate one rule. Callers evaluating several rules for the same request should share one
+     * {@link PreparedRequest} between them.
+     *
+     * Unless the prepared request is verbose, a rule that does not trigger returns its shared
+     * {@link CompiledRule#getPassResult()} and no message is formatted, so passing rules allocate
+     * nothing here.
+     */
+    public RuleResult evaluate(CompiledRule rule, PreparedRequest prepared) {
         log.debug("Evaluating rule {} ({}) with condition type: {}",
-                rule.getId(), rule.getCode(), conditionType);
-
-        return switch (conditionType) {
-            case "NULL_CHECK" -> evaluateNullCheck(rule, request, condition);
-            case "GEO_BOUNDARY" -> evaluateGeoBoundary(rule, request, condition);
-            case "GEO_DISTANCE" -> evaluateGeoDistance(rule, request, condition);
-            case "VELOCITY" -> evaluateVelocity(rule, request, condition);
-            case "TIMESTAMP_AGE" -> evaluateTimestampAge(rule, request, condition);
-            case "TIMESTAMP_DIFF" -> evaluateTimestampDiff(rule, request, condition);
-            case "HASH_MATCH" -> evaluateHashMatch(rule, request, condition);
-            case "IMAGE_SIMILARITY" -> evaluateImageSimilarity(rule, request, condition);
-            case "INTERVAL" -> evaluateInterval(rule, request, condition);
-            case "DEVICE_SHARING" -> evaluateDeviceSharing(rule, request, condition);
-            case "GEO_CLUSTER" -> evaluateGeoCluster(rule, request, condition);
-            case "METADATA_CHECK" -> evaluateMetadataCheck(rule, request, condition);
-            case "TIME_WINDOW" -> evaluateTimeWindow(rule, request, condition);
-            case "AGGREGATE_COUNT" -> evaluateAggregateCount(rule, request, condition);
-            case "GPS_VELOCITY" -> evaluateGpsVelocity(rule, request, condition);
-            case "CUSTOM" -> evaluateCustomExpression(rule, request, condition);
-            default -> createNotTriggeredResult(rule, "Unknown condition type: " + conditionType);
+                rule.getId(), rule.getCode(), rule.getConditionType());
+
+        return switch (rule.getConditionType()) {
+            case NULL_CHECK -> evaluateNullCheck((NullCheckRule) rule, prepared);
+            case GEO_BOUNDARY -> evaluateGeoBoundary((GeoBoundaryRule) rule, prepared);
+            case GEO_DISTANCE -> evaluateGeoDistance((GeoDistanceRule) rule, prepared);
+            case VELOCITY -> evaluateVelocity((VelocityRule) rule, prepared);
+            case TIMESTAMP_AGE -> evaluateTimestampAge((TimestampAgeRule) rule, prepared);
+            case TIMESTAMP_DIFF -> evaluateTimestampDiff((TimestampDiffRule) rule, prepared);
+            case HASH_MATCH -> evaluateHashMatch((HashMatchRule) rule, prepared);
+            case IMAGE_SIMILARITY -> evaluateImageSimilarity((ImageSimilarityRule) rule, prepared);
+            case INTERVAL -> evaluateInterval((IntervalRule) rule, prepared);
+            case DEVICE_SHARING -> evaluateDeviceSharing((DeviceSharingRule) rule, prepared);
+            case GEO_CLUSTER -> evaluateGeoCluster((GeoClusterRule) rule, prepared);
+            case METADATA_CHECK -> evaluateMetadataCheck((MetadataCheckRule) rule, prepared);
+            case TIME_WINDOW -> evaluateTimeWindow((TimeWindowRule) rule, prepared);
+            case AGGREGATE_COUNT -> evaluateAggregateCount((AggregateCountRule) rule, prepared);
+            case GPS_VELOCITY -> evaluateGpsVelocity((GpsVelocityRule) rule, prepared);
+            case CUSTOM -> evaluateCustomExpression((CustomExpressionRule) rule, prepared);
+            case EXTERNAL_VALIDATOR -> passed(rule, prepared, "External rule skipped by internal evaluator");
+            case UNKNOWN -> createNotTriggeredResult(rule,
+                    "Unknown condition type: " + ((UnknownConditionRule) rule).getDeclaredType());
         };
     }
 
-    private RuleResult evaluateNullCheck(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        String field = (String) condition.get("field");
+    private RuleResult evaluateNullCheck(NullCheckRule rule, PreparedRequest prepared) {
+        String field = rule.getField();
 
         boolean isNull = false;
-        String fieldValue = null;
-
-        if (field.contains("gpsLatitude")) {
-            if (request.getEvidences() != null) {
-                isNull = request.getEvidences().stream()
-                        .anyMatch(e -> e.getMetadata() == null || e.getMetadata().getGpsLatitude() == null);
-            } else {
-                isNull = true;
-            }
+
+        if (rule.isGpsLatitudeField()) {
+            isNull = prepared.getRequest().getEvidences() == null || prepared.getEvidence().isGpsMissing();
         }
 
         if (isNull) {
             return createTriggeredResult(rule, "Required field is missing: " + field,
                     Map.of("field", field, "missing", true));
         }
+        if (!prepared.isVerbose()) {
+            return rule.getPassResult();
+        }
         return createNotTriggeredResult(rule, "Field present: " + field);
     }
 
-    private RuleResult evaluateGeoBoundary(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
+    private RuleResult evaluateGeoBoundary(GeoBoundaryRule rule, PreparedRequest prepared) {
+        FraudEvaluationRequest request = prepared.getRequest();
         FraudEvaluationRequest.LocationData location = request.getLocationData();
         if (location == null || location.getLatitude() == null || location.getLongitude() == null) {
-            return createNotTriggeredResult(rule, "No location data to validate");
+            return passed(rule, prepared, "No location data to validate");
         }
 
-        // Simulated boundary check - NCR region approximate bounds
         double lat = location.getLatitude();
         double lon = location.getLongitude();
 
-        // NCR approximate bounds: 28.4-28.9 N, 76.8-77.5 E
-        boolean outsideBoundary = lat < 28.4 || lat > 28.9 || lon < 76.8 || lon > 77.5;
+        boolean outsideBoundary = lat < rule.getMinLatitude() || lat > rule.getMaxLatitude() ||
+                lon < rule.getMinLongitude() || lon > rule.getMaxLongitude();
 
         if (outsideBoundary) {
             return createTriggeredResult(rule, "Location outside tenant boundary",
                     Map.of("latitude", lat, "longitude", lon, "boundary", "NCR"));
         }
-        return createNotTriggeredResult(rule, "Location within boundary");
+        return passed(rule, prepared, "Location within boundary");
     }
 
-    private RuleResult evaluateGeoDistance(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        Number maxDistanceMeters = (Number) condition.get("maxDistanceMeters");
-        if (maxDistanceMeters == null) maxDistanceMeters = 500;
-
-        if (request.getEvidences() == null || request.getEvidences().size() < 2) {
-            return createNotTriggeredResult(rule, "Insufficient evidence for GPS comparison");
+    private RuleResult evaluateGeoDistance(GeoDistanceRule rule, PreparedRequest prepared) {
+        EvidenceIndex evidence = prepared.getEvidence();
+        if (evidence.size() < 2) {
+            return passed(rule, prepared, "Insufficient evidence for GPS comparison");
         }
 
-        FraudEvaluationRequest.EvidenceData dogPhoto = request.getEvidences().stream()
-                .filter(e -> "DOG_PHOTO".equals(e.getPurpose()))
-                .findFirst().orElse(null);
-        FraudEvaluationRequest.EvidenceData selfie = request.getEvidences().stream()
-                .filter(e -> "SELFIE".equals(e.getPurpose()))
-                .findFirst().orElse(null);
+        EvidenceIndex.Located dogPhoto = evidence.getDogPhoto();
+        EvidenceIndex.Located selfie = evidence.getSelfie();
 
-        if (dogPhoto == null || selfie == null ||
-                dogPhoto.getMetadata() == null || selfie.getMetadata() == null ||
-                dogPhoto.getMetadata().getGpsLatitude() == null || selfie.getMetadata().getGpsLatitude() == null) {
-            return createNotTriggeredResult(rule, "Missing GPS data in evidence");
+        if (dogPhoto == null || selfie == null || !dogPhoto.isGps() || !selfie.isGps()) {
+            return passed(rule, prepared, "Missing GPS data in evidence");
         }
 
         double distance = calculateDistance(
-                dogPhoto.getMetadata().getGpsLatitude(), dogPhoto.getMetadata().getGpsLongitude(),
-                selfie.getMetadata().getGpsLatitude(), selfie.getMetadata().getGpsLongitude()
+                dogPhoto.getLatitude(), dogPhoto.getLongitude(),
+                selfie.getLatitude(), selfie.getLongitude()
         );
 
-        if (distance > maxDistanceMeters.doubleValue()) {
+        if (distance > rule.getMaxDistanceMeters()) {
             return createTriggeredResult(rule, String.format("GPS mismatch: %.0fm apart", distance),
-                    Map.of("distance_meters", distance, "max_allowed", maxDistanceMeters));
+                    Map.of("distance_meters", distance, "max_allowed", rule.getMaxDistanceMeters()));
+        }
+        if (!prepared.isVerbose()) {
+            return rule.getPassResult();
         }
         return createNotTriggeredResult(rule, String.format("GPS within range: %.0fm", distance));
     }
 
-    private RuleResult evaluateVelocity(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        Number threshold = (Number) condition.get("threshold");
-        Number windowHours = (Number) condition.get("windowHours");
-        if (threshold == null) threshold = 5;
-        if (windowHours == null) windowHours = 1;
-
+    private RuleResult evaluateVelocity(VelocityRule rule, PreparedRequest prepared) {
+        FraudEvaluationRequest request = prepared.getRequest();
         String applicantId = request.getApplicantInfo() != null ?
                 request.getApplicantInfo().getApplicantId() : null;
         if (applicantId == null) {
-            return createNotTriggeredResult(rule, "No applicant ID for velocity check");
+            return passed(rule, prepared, "No applicant ID for velocity check");
         }
 
-        long now = System.currentTimeMillis();
-        long windowMs = windowHours.longValue() * 60 * 60 * 1000;
-        long windowStart = now - windowMs;
+        long windowStart = prepared.getNow() - rule.getWindowMs();
+        long recentCount = stateStore.countSubmissionsSince(applicantId, windowStart) + 1;
 
-        List<Long> timestamps = submissionTimestamps.getOrDefault(applicantId, List.of());
-        long recentCount = timestamps.stream().filter(t -> t > windowStart).count() + 1;
-
-        // Record this submission
-        submissionTimestamps.compute(applicantId, (k, v) -> {
-            List<Long> newList = new java.util.ArrayList<>(v != null ? v : List.of());
-            newList.add(now);
-            return newList;
-        });
-
-        if (recentCount > threshold.longValue()) {
+        if (recentCount > rule.getThreshold()) {
             return createTriggeredResult(rule,
-                    String.format("High velocity: %d submissions in %d hours", recentCount, windowHours),
-                    Map.of("count", recentCount, "threshold", threshold, "window_hours", windowHours));
+                    String.format("High velocity: %d submissions in %d hours", recentCount, rule.getWindowHours()),
+                    Map.of("count", recentCount, "threshold", rule.getThreshold(), "window_hours", rule.getWindowHours()));
+        }
+        if (!prepared.isVerbose()) {
+            return rule.getPassResult();
         }
         return createNotTriggeredResult(rule, String.format("Velocity OK: %d submissions", recentCount));
     }
 
-    private RuleResult evaluateTimestampAge(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        Number maxAgeHours = (Number) condition.get("maxAgeHours");
-        if (maxAgeHours == null) maxAgeHours = 48;
-
-        if (request.getEvidences() == null || request.getEvidences().isEmpty()) {
-            return createNotTriggeredResult(rule, "No evidence to check timestamp");
+    private RuleResult evaluateTimestampAge(TimestampAgeRule rule, PreparedRequest prepared) {
+        EvidenceIndex evidence = prepared.getEvidence();
+        if (evidence.size() == 0) {
+            return passed(rule, prepared, "No evidence to check timestamp");
         }
 
-        long now = System.currentTimeMillis();
-        long maxAgeMs = maxAgeHours.longValue() * 60 * 60 * 1000;
-
-        for (FraudEvaluationRequest.EvidenceData evidence : request.getEvidences()) {
-            if (evidence.getMetadata() != null && evidence.getMetadata().getTimestamp() != null) {
-                long age = now - evidence.getMetadata().getTimestamp();
-                if (age > maxAgeMs) {
-                    long ageHours = age / (60 * 60 * 1000);
-                    return createTriggeredResult(rule,
-                            String.format("Evidence is %d hours old (max: %d)", ageHours, maxAgeHours),
-                            Map.of("age_hours", ageHours, "max_hours", maxAgeHours));
-                }
+        long oldest = evidence.getOldestTimestamp();
+        if (oldest != EvidenceIndex.NO_TIMESTAMP) {
+            long age = prepared.getNow() - oldest;
+            if (age > rule.getMaxAgeMs()) {
+                long ageHours = age / (60 * 60 * 1000);
+                return createTriggeredResult(rule,
+                        String.format("Evidence is %d hours old (max: %d)", ageHours, rule.getMaxAgeHours()),
+                        Map.of("age_hours", ageHours, "max_hours", rule.getMaxAgeHours()));
             }
         }
-        return createNotTriggeredResult(rule, "Evidence timestamps within allowed age");
+        return passed(rule, prepared, "Evidence timestamps within allowed age");
     }
 
-    private RuleResult evaluateTimestampDiff(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        Number maxDiffMinutes = (Number) condition.get("maxDiffMinutes");
-        if (maxDiffMinutes == null) maxDiffMinutes = 10;
-
-        if (request.getEvidences() == null || request.getEvidences().size() < 2) {
-            return createNotTriggeredResult(rule, "Insufficient evidence for timestamp comparison");
+    private RuleResult evaluateTimestampDiff(TimestampDiffRule rule, PreparedRequest prepared) {
+        EvidenceIndex evidence = prepared.getEvidence();
+        if (evidence.size() < 2) {
+            return passed(rule, prepared, "Insufficient evidence for timestamp comparison");
         }
 
-        Long dogPhotoTs = request.getEvidences().stream()
-                .filter(e -> "DOG_PHOTO".equals(e.getPurpose()))
-                .findFirst()
-                .map(e -> e.getMetadata() != null ? e.getMetadata().getTimestamp() : null)
-                .orElse(null);
+        long dogPhotoTs = evidence.getDogPhoto() != null ? evidence.getDogPhoto().getTimestamp() : EvidenceIndex.NO_TIMESTAMP;
+        long selfieTs = evidence.getSelfie() != null ? evidence.getSelfie().getTimestamp() : EvidenceIndex.NO_TIMESTAMP;
 
-        Long selfieTs = request.getEvidences().stream()
-                .filter(e -> "SELFIE".equals(e.getPurpose()))
-                .findFirst()
-                .map(e -> e.getMetadata() != null ? e.getMetadata().getTimestamp() : null)
-                .orElse(null);
-
-        if (dogPhotoTs == null || selfieTs == null) {
-            return createNotTriggeredResult(rule, "Missing timestamps for comparison");
+        if (dogPhotoTs == EvidenceIndex.NO_TIMESTAMP || selfieTs == EvidenceIndex.NO_TIMESTAMP) {
+            return passed(rule, prepared, "Missing timestamps for comparison");
         }
 
         long diffMinutes = Math.abs(dogPhotoTs - selfieTs) / (60 * 1000);
-        if (diffMinutes > maxDiffMinutes.longValue()) {
+        if (diffMinutes > rule.getMaxDiffMinutes()) {
             return createTriggeredResult(rule,
-                    String.format("Photo-Selfie time gap: %d minutes (max: %d)", diffMinutes, maxDiffMinutes),
-                    Map.of("diff_minutes", diffMinutes, "max_minutes", maxDiffMinutes));
+                    String.format("Photo-Selfie time gap: %d minutes (max: %d)", diffMinutes, rule.getMaxDiffMinutes()),
+                    Map.of("diff_minutes", diffMinutes, "max_minutes", rule.getMaxDiffMinutes()));
+        }
+        if (!prepared.isVerbose()) {
+            return rule.getPassResult();
         }
         return createNotTriggeredResult(rule, String.format("Time gap OK: %d minutes", diffMinutes));
     }
 
-    private RuleResult evaluateHashMatch(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        String field = (String) condition.get("field");
-
-        if (request.getEvidences() == null || request.getEvidences().isEmpty()) {
-            return createNotTriggeredResult(rule, "No evidence to check for duplicates");
+    private RuleResult evaluateHashMatch(HashMatchRule rule, PreparedRequest prepared) {
+        FraudEvaluationRequest request = prepared.getRequest();
+        List<FraudEvaluationRequest.EvidenceData> evidences = prepared.getEvidence().getAll();
+        if (evidences.isEmpty()) {
+            return passed(rule, prepared, "No evidence to check for duplicates");
         }
 
-        for (FraudEvaluationRequest.EvidenceData evidence : request.getEvidences()) {
+        for (FraudEvaluationRequest.EvidenceData evidence : evidences) {
             String hash = evidence.getContentHash();
             if (hash != null) {
-                String existingAppId = contentHashes.get(hash);
-                if (existingAppId != null && !existingAppId.equals(request.getApplicationId())) {
+                String existingAppId = stateStore.putHashIfAbsent(FraudStateStore.HashType.CONTENT,
+                        hash, request.getApplicationId(), prepared.getNow());
+                if (existingAppId != null) {
                     return createTriggeredResult(rule, "Exact duplicate content detected",
                             Map.of("matching_application", existingAppId, "hash", hash));
                 }
-                contentHashes.put(hash, request.getApplicationId());
             }
         }
-        return createNotTriggeredResult(rule, "No duplicate content found");
+        return passed(rule, prepared, "No duplicate content found");
     }
 
-    private RuleResult evaluateImageSimilarity(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        Number threshold = (Number) condition.get("threshold");
-        if (threshold == null) threshold = 0.90;
+    private RuleResult evaluateImageSimilarity(ImageSimilarityRule rule, PreparedRequest prepared) {
+        FraudEvaluationRequest request = prepared.getRequest();
+        if (prepared.getEvidence().size() == 0) {
+            return passed(rule, prepared, "No evidence to check for similar images");
+        }
 
-        // Simulated perceptual hash comparison
-        // In production, this would use a pHash library and image comparison service
-        return createNotTriggeredResult(rule, "Image similarity check passed (simulated)");
-    }
+        long now = prepared.getNow();
+        long since = now - rule.getLookbackMs();
+        PerceptualHashIndex.Match match = null;
+
+        for (FraudEvaluationRequest.EvidenceData evidence : prepared.getEvidence().withPurpose(rule.getPurpose())) {
+            if (evidence.getPerceptualHash() == null) {
+                continue;
+            }
+            long hash;
+            try {
+                hash = PerceptualHashIndex.parse(evidence.getPerceptualHash());
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed perceptual hash on application {}: {}",
+                        request.getApplicationId(), evidence.getPerceptualHash());
+                continue;
+            }
+            if (match == null) {
+                match = imageHashIndex.findNearest(hash, rule.getMaxDistance(), since, request.getApplicationId());
+            }
+            if (request.getApplicationId() != null) {
+                imageHashIndex.add(hash, request.getApplicationId(), now);
+            }
+        }
 
-    private RuleResult evaluateInterval(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        Number minIntervalMinutes = (Number) condition.get("minIntervalMinutes");
-        if (minIntervalMinutes == null) minIntervalMinutes = 5;
+        if (match != null) {
+            return createTriggeredResult(rule,
+                    String.format("Image %.0f%% similar to earlier submission", match.getSimilarity() * 100),
+                    Map.of("matching_application", match.getApplicationId(),
+                            "similarity", match.getSimilarity(),
+                            "hamming_distance", match.getDistance(),
+                            "threshold", rule.getThreshold()));
+        }
+        return passed(rule, prepared, "No similar images found");
+    }
 
+    private RuleResult evaluateInterval(IntervalRule rule, PreparedRequest prepared) {
+        FraudEvaluationRequest request = prepared.getRequest();
         String applicantId = request.getApplicantInfo() != null ?
                 request.getApplicantInfo().getApplicantId() : null;
         if (applicantId == null) {
-            return createNotTriggeredResult(rule, "No applicant ID for interval check");
+            return passed(rule, prepared, "No applicant ID for interval check");
         }
 
-        List<Long> timestamps = submissionTimestamps.getOrDefault(applicantId, List.of());
-        if (!timestamps.isEmpty()) {
-            long lastSubmission = timestamps.get(timestamps.size() - 1);
-            long intervalMinutes = (System.currentTimeMillis() - lastSubmission) / (60 * 1000);
-            if (intervalMinutes < minIntervalMinutes.longValue()) {
+        long lastSubmission = stateStore.lastSubmission(applicantId);
+        if (lastSubmission != FraudStateStore.NONE) {
+            long intervalMinutes = (prepared.getNow() - lastSubmission) / (60 * 1000);
+            if (intervalMinutes < rule.getMinIntervalMinutes()) {
                 return createTriggeredResult(rule,
-                        String.format("Rapid submission: %d minutes since last (min: %d)", intervalMinutes, minIntervalMinutes),
-                        Map.of("interval_minutes", intervalMinutes, "min_interval", minIntervalMinutes));
+                        String.format("Rapid submission: %d minutes since last (min: %d)",
+                                intervalMinutes, rule.getMinIntervalMinutes()),
+                        Map.of("interval_minutes", intervalMinutes, "min_interval", rule.getMinIntervalMinutes()));
             }
         }
-        return createNotTriggeredResult(rule, "Submission interval OK");
+        return passed(rule, prepared, "Submission interval OK");
     }
 
-    private RuleResult evaluateDeviceSharing(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        Number minUniqueUsers = (Number) condition.get("minUniqueUsers");
-        if (minUniqueUsers == null) minUniqueUsers = 2;
-
-        String deviceId = null;
-        if (request.getEvidences() != null) {
-            deviceId = request.getEvidences().stream()
-                    .filter(e -> e.getMetadata() != null && e.getMetadata().getDeviceId() != null)
-                    .findFirst()
-                    .map(e -> e.getMetadata().getDeviceId())
-                    .orElse(null);
-        }
-        if (deviceId == null && request.getApplicantInfo() != null) {
-            deviceId = request.getApplicantInfo().getDeviceId();
-        }
+    private RuleResult evaluateDeviceSharing(DeviceSharingRule rule, PreparedRequest prepared) {
+        FraudEvaluationRequest request = prepared.getRequest();
+        String deviceId = deviceId(prepared);
         if (deviceId == null) {
-            return createNotTriggeredResult(rule, "No device ID to check sharing");
+            return passed(rule, prepared, "No device ID to check sharing");
         }
 
         String applicantId = request.getApplicantInfo() != null ?
                 request.getApplicantInfo().getApplicantId() : "unknown";
 
-        String finalDeviceId = deviceId;
-        deviceUsers.compute(deviceId, (k, v) -> {
-            List<String> users = new java.util.ArrayList<>(v != null ? v : List.of());
-            if (!users.contains(applicantId)) {
-                users.add(applicantId);
-            }
-            return users;
-        });
-
-        int uniqueUsers = deviceUsers.get(deviceId).size();
-        if (uniqueUsers >= minUniqueUsers.intValue()) {
+        int uniqueUsers = stateStore.addDeviceUser(deviceId, applicantId, prepared.getNow());
+        if (uniqueUsers >= rule.getMinUniqueUsers()) {
             return createTriggeredResult(rule,
                     String.format("Device shared by %d users", uniqueUsers),
-                    Map.of("device_id", deviceId, "unique_users", uniqueUsers, "users", deviceUsers.get(deviceId)));
+                    Map.of("device_id", deviceId, "unique_users", uniqueUsers));
         }
-        return createNotTriggeredResult(rule, "Device not shared excessively");
+        return passed(rule, prepared, "Device not shared excessively");
     }
 
-    private RuleResult evaluateGeoCluster(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        // Simulated geo-clustering check
-        // In production, this would use spatial queries against historical submissions
-        return createNotTriggeredResult(rule, "Geo-cluster check passed (simulated)");
-    }
+    private RuleResult evaluateGeoCluster(GeoClusterRule rule, PreparedRequest prepared) {
+        FraudEvaluationRequest request = prepared.getRequest();
+        FraudEvaluationRequest.LocationData location = request.getLocationData();
+        if (location == null || location.getLatitude() == null || location.getLongitude() == null) {
+            return passed(rule, prepared, "No location data for cluster check");
+        }
 
-    private RuleResult evaluateMetadataCheck(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        Boolean expectedValue = (Boolean) condition.get("expectedValue");
-        String field = (String) condition.get("field");
+        long windowStart = prepared.getNow() - rule.getWindowMs();
+        int clusterCount = geoIndex.countWithin(location.getLatitude(), location.getLongitude(),
+                rule.getRadiusMeters(), windowStart) + 1;
+
+        if (clusterCount >= rule.getMinCount()) {
+            return createTriggeredResult(rule,
+                    String.format("Geo cluster: %d submissions within %.0fm in %d hours",
+                            clusterCount, rule.getRadiusMeters(), rule.getWindowHours()),
+                    Map.of("count", clusterCount, "min_count", rule.getMinCount(),
+                            "radius_meters", rule.getRadiusMeters(), "window_hours", rule.getWindowHours()));
+        }
+        if (!prepared.isVerbose()) {
+            return rule.getPassResult();
+        }
+        return createNotTriggeredResult(rule, String.format("Geo cluster OK: %d submissions nearby", clusterCount));
+    }
 
-        if (request.getEvidences() == null || request.getEvidences().isEmpty()) {
-            return createNotTriggeredResult(rule, "No evidence to check metadata");
+    private RuleResult evaluateMetadataCheck(MetadataCheckRule rule, PreparedRequest prepared) {
+        EvidenceIndex evidence = prepared.getEvidence();
+        if (evidence.size() == 0) {
+            return passed(rule, prepared, "No evidence to check metadata");
         }
 
-        if (field.contains("exifPresent")) {
-            boolean exifMissing = request.getEvidences().stream()
-                    .anyMatch(e -> e.getMetadata() == null ||
-                            e.getMetadata().getExifPresent() == null ||
-                            !e.getMetadata().getExifPresent());
-            if (exifMissing && Boolean.TRUE.equals(expectedValue)) {
+        if (rule.isExifPresentField()) {
+            if (evidence.isExifMissing() && rule.isExpectedValue()) {
                 return createTriggeredResult(rule, "EXIF metadata stripped from photo",
-                        Map.of("field", field, "expected", expectedValue));
+                        Map.of("field", rule.getField(), "expected", rule.isExpectedValue()));
             }
         }
-        return createNotTriggeredResult(rule, "Metadata check passed");
+        return passed(rule, prepared, "Metadata check passed");
     }
 
-    private RuleResult evaluateTimeWindow(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        String timezone = (String) condition.getOrDefault("timezone", "Asia/Kolkata");
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> allowedWindows = (List<Map<String, Object>>) condition.get("allowedWindows");
+    private RuleResult evaluateTimeWindow(TimeWindowRule rule, PreparedRequest prepared) {
+        List<TimeWindowRule.AllowedWindow> allowedWindows = rule.getAllowedWindows();
 
-        if (allowedWindows == null || allowedWindows.isEmpty()) {
-            return createNotTriggeredResult(rule, "No time windows configured");
+        if (allowedWindows.isEmpty()) {
+            return passed(rule, prepared, "No time windows configured");
         }
 
-        LocalTime now = LocalTime.now(ZoneId.of(timezone));
-        String dayOfWeek = java.time.LocalDate.now(ZoneId.of(timezone)).getDayOfWeek().name().substring(0, 3);
+        ZonedDateTime now = Instant.ofEpochMilli(prepared.getNow()).atZone(rule.getZone());
+        LocalTime time = now.toLocalTime();
+        DayOfWeek day = now.getDayOfWeek();
 
-        for (Map<String, Object> window : allowedWindows) {
-            @SuppressWarnings("unchecked")
-            List<String> days = (List<String>) window.get("days");
-            if (days != null && days.contains(dayOfWeek)) {
-                LocalTime start = LocalTime.parse((String) window.get("start"));
-                LocalTime end = LocalTime.parse((String) window.get("end"));
-                if (!now.isBefore(start) && !now.isAfter(end)) {
-                    return createNotTriggeredResult(rule, "Within allowed time window");
-                }
+        for (TimeWindowRule.AllowedWindow window : allowedWindows) {
+            if (window.contains(day, time)) {
+                return passed(rule, prepared, "Within allowed time window");
             }
         }
 
+        String dayOfWeek = day.name().substring(0, 3);
         return createTriggeredResult(rule,
-                String.format("Submission outside school hours: %s %s", dayOfWeek, now),
-                Map.of("time", now.toString(), "day", dayOfWeek));
+                String.format("Submission outside school hours: %s %s", dayOfWeek, time),
+                Map.of("time", time.toString(), "day", dayOfWeek));
     }
 
-    private RuleResult evaluateAggregateCount(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        Number threshold = (Number) condition.get("threshold");
-        Number periodDays = (Number) condition.get("periodDays");
-        if (threshold == null) threshold = 5;
-        if (periodDays == null) periodDays = 1;
-
+    private RuleResult evaluateAggregateCount(AggregateCountRule rule, PreparedRequest prepared) {
+        FraudEvaluationRequest request = prepared.getRequest();
         String applicantId = request.getApplicantInfo() != null ?
                 request.getApplicantInfo().getApplicantId() : null;
         if (applicantId == null) {
-            return createNotTriggeredResult(rule, "No applicant ID for aggregate check");
+            return passed(rule, prepared, "No applicant ID for aggregate check");
         }
 
-        long now = System.currentTimeMillis();
-        long periodMs = periodDays.longValue() * 24 * 60 * 60 * 1000;
-        long periodStart = now - periodMs;
-
-        List<Long> timestamps = submissionTimestamps.getOrDefault(applicantId, List.of());
-        long periodCount = timestamps.stream().filter(t -> t > periodStart).count() + 1;
+        long periodStart = prepared.getNow() - rule.getPeriodMs();
+        long periodCount = stateStore.countSubmissionsSince(applicantId, periodStart) + 1;
 
-        if (periodCount > threshold.longValue()) {
+        if (periodCount > rule.getThreshold()) {
             return createTriggeredResult(rule,
                     String.format("Aggregate limit exceeded: %d in %d days (max: %d)",
-                            periodCount, periodDays, threshold),
-                    Map.of("count", periodCount, "threshold", threshold, "period_days", periodDays));
+                            periodCount, rule.getPeriodDays(), rule.getThreshold()),
+                    Map.of("count", periodCount, "threshold", rule.getThreshold(), "period_days", rule.getPeriodDays()));
+        }
+        if (!prepared.isVerbose()) {
+            return rule.getPassResult();
         }
         return createNotTriggeredResult(rule, String.format("Aggregate count OK: %d", periodCount));
     }
 
-    private RuleResult evaluateGpsVelocity(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        // Simulated GPS velocity check
-        // In production, this would compare current location with last known location
-        return createNotTriggeredResult(rule, "GPS velocity check passed (simulated)");
-    }
+    /**
+     * Speed implied by travel from the applicant's and the device's last known positions.
+     * Intervals shorter than {@code minIntervalMinutes} count as that long, so GPS jitter
+     * between rapid submissions does not read as high speed.
+     */
+    private RuleResult evaluateGpsVelocity(GpsVelocityRule rule, PreparedRequest prepared) {
+        FraudEvaluationRequest request = prepared.getRequest();
+        FraudEvaluationRequest.LocationData location = request.getLocationData();
+        if (location == null || location.getLatitude() == null || location.getLongitude() == null) {
+            return passed(rule, prepared, "No location data for velocity check");
+        }
+        double latitude = location.getLatitude();
+        double longitude = location.getLongitude();
+        long now = prepared.getNow();
 
-    private RuleResult evaluateCustomExpression(FraudRule rule, FraudEvaluationRequest request, Map<String, Object> condition) {
-        String expression = (String) condition.get("expression");
+        String applicantId = request.getApplicantInfo() != null ?
+                request.getApplicantInfo().getApplicantId() : null;
+        double speedKmh = Math.max(
+                impliedSpeedKmh(rule, KeyType.APPLICANT, applicantId, latitude, longitude, now),
+                impliedSpeedKmh(rule, KeyType.DEVICE, deviceId(prepared), latitude, longitude, now));
 
-        if (expression == null || expression.isBlank()) {
-            log.warn("Rule {} has empty expression", rule.getCode());
-            return createNotTriggeredResult(rule, "No expression configured");
+        if (speedKmh > rule.getMaxSpeedKmh()) {
+            return createTriggeredResult(rule,
+                    String.format("Impossible travel: %.0f km/h since last submission (max: %.0f)",
+                            speedKmh, rule.getMaxSpeedKmh()),
+                    Map.of("speed_kmh", Math.round(speedKmh), "max_speed_kmh", rule.getMaxSpeedKmh()));
         }
+        if (!prepared.isVerbose()) {
+            return rule.getPassResult();
+        }
+        return createNotTriggeredResult(rule, String.format("Travel speed OK: %.0f km/h", speedKmh));
+    }
 
-        // Validate expression syntax first
-        if (!expressionEvaluator.isValidExpression(expression)) {
-            log.error("Rule {} has invalid expression: {}", rule.getCode(), expression);
-            return createNotTriggeredResult(rule, "Invalid expression syntax: " + expression);
+    /**
+     * Speed in km/h from the key's last known position, or 0 if there is none. Uses the
+     * equirectangular approximation, and the exact haversine distance only when the approximate
+     * speed is within 10% of the limit.
+     */
+    private double impliedSpeedKmh(GpsVelocityRule rule, KeyType type, String id,
+                                   double latitude, double longitude, long now) {
+        if (id == null) {
+            return 0;
+        }
+        LastPositionStore.Position last = positionStore.get(type, id, now);
+        if (last == null) {
+            return 0;
         }
+        long elapsedMs = Math.max(now - last.getTimestamp(), rule.getMinIntervalMinutes() * 60_000);
+        double hours = elapsedMs / 3_600_000.0;
+        double speed = approximateDistance(last.getLatitude(), last.getLongitude(), latitude, longitude) / 1000 / hours;
+        double limit = rule.getMaxSpeedKmh();
+        if (speed > limit * 0.9 && speed < limit * 1.1) {
+            speed = calculateDistance(last.getLatitude(), last.getLongitude(), latitude, longitude) / 1000 / hours;
+        }
+        return speed;
+    }
 
-        log.debug("Evaluating SpEL expression for rule {}: {}", rule.getCode(), expression);
+    /**
+     * The first device ID in the evidence metadata, else the applicant's, or null.
+     */
+    private static String deviceId(PreparedRequest prepared) {
+        String deviceId = prepared.getEvidence().getDeviceId();
+        FraudEvaluationRequest request = prepared.getRequest();
+        if (deviceId == null && request.getApplicantInfo() != null) {
+            deviceId = request.getApplicantInfo().getDeviceId();
+        }
+        return deviceId;
+    }
 
-        try {
-            boolean triggered = expressionEvaluator.evaluate(expression, request);
+    /**
+     * The expression was parsed and validated when the rules were loaded; invalid ones never
+     * reach this point, see {@link MDMSService#getQuarantinedRules()}.
+     */
+    private RuleResult evaluateCustomExpression(CustomExpressionRule rule, PreparedRequest prepared) {
+        CompiledExpression expression = rule.getCompiled();
+        if (expression == null) {
+            return passed(rule, prepared, "No expression configured");
+        }
 
-            if (triggered) {
+        try {
+            if (expression.matches(prepared.getRequest(),
+                    () -> prepared.getExpressionContext(expressionEvaluator::createContext))) {
                 return createTriggeredResult(rule,
-                        String.format("Custom expression triggered: %s", expression),
-                        Map.of("expression", expression, "result", true));
+                        String.format("Custom expression triggered: %s", expression.getText()),
+                        Map.of("expression", expression.getText(), "result", true));
             }
-            return createNotTriggeredResult(rule, "Custom expression evaluated to false");
+            return passed(rule, prepared, "Custom expression evaluated to false");
 
         } catch (Exception e) {
-            log.error("Error evaluating expression '{}' for rule {}: {}",
-                    expression, rule.getCode(), e.getMessage());
+            log.warn("Error evaluating expression '{}' for rule {}: {}",
+                    expression.getText(), rule.getCode(), e.getMessage());
             return createNotTriggeredResult(rule, "Expression evaluation error: " + e.getMessage());
         }
     }
 
-    private RuleResult createTriggeredResult(FraudRule rule, String message, Map<String, Object> details) {
-        Integer weight = mdmsService.getCategoryWeight(rule.getCategory());
-        Integer score = calculateRuleScore(rule, weight);
-
+    private RuleResult createTriggeredResult(CompiledRule rule, String message, Map<String, Object> details) {
         return RuleResult.builder()
                 .ruleId(rule.getId())
                 .ruleCode(rule.getCode())
@@ -452,13 +535,17 @@ public class InternalRuleEvaluator {
                 .category(rule.getCategory())
                 .severity(rule.getSeverity())
                 .triggered(true)
-                .score(score)
+                .score(rule.getScore())
                 .message(message)
                 .details(details)
                 .build();
     }
 
-    private RuleResult createNotTriggeredResult(FraudRule rule, String message) {
+    private RuleResult passed(CompiledRule rule, PreparedRequest prepared, String message) {
+        return prepared.isVerbose() ? createNotTriggeredResult(rule, message) : rule.getPassResult();
+    }
+
+    private RuleResult createNotTriggeredResult(CompiledRule rule, String message) {
         return RuleResult.builder()
                 .ruleId(rule.getId())
                 .ruleCode(rule.getCode())
@@ -472,17 +559,6 @@ public class InternalRuleEvaluator {
                 .build();
     }
 
-    private Integer calculateRuleScore(FraudRule rule, Integer categoryWeight) {
-        int severityMultiplier = switch (rule.getSeverity()) {
-            case "CRITICAL" -> 4;
-            case "HIGH" -> 3;
-            case "MEDIUM" -> 2;
-            case "LOW" -> 1;
-            default -> 1;
-        };
-        return (categoryWeight * severityMultiplier) / 4;
-    }
-
     private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
         final int R = 6371000; // Earth's radius in meters
         double dLat = Math.toRadians(lat2 - lat1);
@@ -493,4 +569,20 @@ public class InternalRuleEvaluator {
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
         return R * c;
     }
+
+    /**
+     * Equirectangular approximation of {@link #calculateDistance}: within about 1% up to a few
+     * hundred kilometres, without the trigonometry per call beyond one cosine.
+     */
+    private static double approximateDistance(double lat1, double lon1, double lat2, double lon2) {
+        double dLon = lon2 - lon1;
+        if (dLon > 180) {
+            dLon -= 360;
+        } else if (dLon < -180) {
+            dLon += 360;
+        }
+        double x = Math.toRadians(dLon) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return 6371000 * Math.sqrt(x * x + y * y);
+    }
 }
@@ -7,16 +7,26 @@ import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.digit.fraud.model.FraudRule;
+import org.digit.fraud.model.QuarantinedRule;
 import org.digit.fraud.model.RiskScoreConfig;
-import org.springframework.cache.annotation.Cacheable;
+import org.digit.fraud.service.rule.CompiledRule;
+import org.digit.fraud.service.rule.ExternalValidatorRule;
+import org.digit.fraud.service.rule.RuleCompiler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -24,85 +34,230 @@ import java.util.stream.Collectors;
 public class MDMSService {
 
     private final ObjectMapper objectMapper;
+    private final ExpressionEvaluatorService expressionEvaluator;
+    private final RuleStatistics ruleStatistics;
 
-    private List<FraudRule> fraudRules;
-    private RiskScoreConfig riskScoreConfig;
+    @Value("${fraud.mdms.directory:}")
+    private String mdmsDirectory;
+
+    @Value("${fraud.state.submissions.capacity:32}")
+    private int submissionCapacity;
+
+    @Value("${fraud.state.devices.retention-hours:168}")
+    private long deviceWindowHours;
+
+    private volatile RuleSet ruleSet;
 
     @PostConstruct
     public void init() {
-        loadFraudRules();
-        loadRiskScoreConfig();
+        // Category weights are needed to compile rule scores, so load them first
+        RiskScoreConfig riskScoreConfig;
+        try {
+            riskScoreConfig = readRiskScoreConfig();
+        } catch (IOException e) {
+            log.error("Failed to load RiskScoreConfig.json", e);
+            riskScoreConfig = new RiskScoreConfig();
+        }
+        List<FraudRule> fraudRules;
+        try {
+            fraudRules = readFraudRules();
+        } catch (IOException e) {
+            log.error("Failed to load FraudRules.json", e);
+            fraudRules = Collections.emptyList();
+        }
+        List<QuarantinedRule> quarantined = new ArrayList<>();
+        RuleSet first = new RuleSet(1, fraudRules, compileRules(fraudRules, riskScoreConfig, quarantined),
+                riskScoreConfig, quarantined);
+        ruleStatistics.install(first.version, first.moduleRules());
+        ruleSet = first;
         log.info("MDMS data loaded successfully. Rules: {}, Categories: {}",
                 fraudRules.size(),
                 riskScoreConfig.getWeights().size());
     }
 
-    private void loadFraudRules() {
-        try {
-            ClassPathResource resource = new ClassPathResource("mdms/FRAUD-DETECTION/FraudRules.json");
-            InputStream inputStream = resource.getInputStream();
+    /**
+     * Re-read and recompile FraudRules.json and RiskScoreConfig.json, then swap them in as one
+     * new version. Evaluations that already fetched their rules finish on the previous version;
+     * later lookups see the new one. Lookups never wait on a reload.
+     *
+     * @return the new version
+     * @throws IOException if either file cannot be read or parsed; the current version stays in effect
+     */
+    public synchronized long reload() throws IOException {
+        RiskScoreConfig riskScoreConfig = readRiskScoreConfig();
+        List<FraudRule> fraudRules = readFraudRules();
+        List<QuarantinedRule> quarantined = new ArrayList<>();
+        RuleSet next = new RuleSet(ruleSet.version + 1, fraudRules,
+                compileRules(fraudRules, riskScoreConfig, quarantined), riskScoreConfig, quarantined);
+        ruleStatistics.install(next.version, next.moduleRules());
+        ruleSet = next;
+        log.info("MDMS data reloaded as version {}. Rules: {}, Categories: {}",
+                next.version, fraudRules.size(), riskScoreConfig.getWeights().size());
+        return next.version;
+    }
+
+    /**
+     * Incremented by every successful {@link #reload()}.
+     */
+    public long getVersion() {
+        return ruleSet.version;
+    }
+
+    private List<FraudRule> readFraudRules() throws IOException {
+        try (InputStream inputStream = open("FraudRules.json")) {
             JsonNode root = objectMapper.readTree(inputStream);
             JsonNode rulesNode = root.get("FraudRules");
 
-            fraudRules = objectMapper.convertValue(rulesNode, new TypeReference<List<FraudRule>>() {});
-            log.info("Loaded {} fraud rules from embedded MDMS", fraudRules.size());
-        } catch (IOException e) {
-            log.error("Failed to load FraudRules.json", e);
-            fraudRules = Collections.emptyList();
+            List<FraudRule> fraudRules = objectMapper.convertValue(rulesNode, new TypeReference<List<FraudRule>>() {});
+            log.info("Loaded {} fraud rules from {}", fraudRules.size(), source());
+            return Collections.unmodifiableList(fraudRules);
         }
     }
 
-    private void loadRiskScoreConfig() {
-        try {
-            ClassPathResource resource = new ClassPathResource("mdms/FRAUD-DETECTION/RiskScoreConfig.json");
-            InputStream inputStream = resource.getInputStream();
+    /**
+     * Compile the rules, parsing every expression they use now so requests never pay for
+     * parsing. Rules that fail, including those with an invalid expression, a submission count
+     * threshold the state store cannot reach or a device sharing window it does not count over,
+     * are added to {@code quarantined} and left out.
+     */
+    private List<CompiledRule> compileRules(List<FraudRule> rules, RiskScoreConfig riskScoreConfig,
+                                            List<QuarantinedRule> quarantined) {
+        List<CompiledRule> compiled = new ArrayList<>(rules.size());
+        for (FraudRule rule : rules) {
+            try {
+                compiled.add(RuleCompiler.compile(rule, categoryWeight(riskScoreConfig, rule.getCategory()),
+                        expressionEvaluator::compile, expressionEvaluator::compileSpel, submissionCapacity,
+                        deviceWindowHours));
+            } catch (RuntimeException e) {
+                log.error("Quarantined rule {}: {}", rule.getCode(), e.getMessage());
+                quarantined.add(QuarantinedRule.builder()
+                        .ruleId(rule.getId())
+                        .ruleCode(rule.getCode())
+                        .ruleName(rule.getName())
+                        .reason(e.getMessage())
+                        .build());
+            }
+        }
+        log.info("Compiled {} of {} fraud rules", compiled.size(), rules.size());
+        return Collections.unmodifiableList(compiled);
+    }
+
+    private RiskScoreConfig readRiskScoreConfig() throws IOException {
+        try (InputStream inputStream = open("RiskScoreConfig.json")) {
             JsonNode root = objectMapper.readTree(inputStream);
             JsonNode configNode = root.get("RiskScoreConfig");
 
-            riskScoreConfig = objectMapper.convertValue(configNode, RiskScoreConfig.class);
+            RiskScoreConfig riskScoreConfig = objectMapper.convertValue(configNode, RiskScoreConfig.class);
             log.info("Loaded risk score config with {} category weights", riskScoreConfig.getWeights().size());
-        } catch (IOException e) {
-            log.error("Failed to load RiskScoreConfig.json", e);
-            riskScoreConfig = new RiskScoreConfig();
+            return riskScoreConfig;
         }
     }
 
-    @Cacheable(value = "fraudRules", key = "'all'")
+    /**
+     * MDMS files come from {@code fraud.mdms.directory} if set, otherwise from the embedded copy.
+     */
+    private InputStream open(String fileName) throws IOException {
+        if (mdmsDirectory.isEmpty()) {
+            return new ClassPathResource("mdms/FRAUD-DETECTION/" + fileName).getInputStream();
+        }
+        return Files.newInputStream(Path.of(mdmsDirectory, fileName));
+    }
+
+    private String source() {
+        return mdmsDirectory.isEmpty() ? "embedded MDMS" : mdmsDirectory;
+    }
+
     public List<FraudRule> getAllRules() {
-        return fraudRules;
+        return ruleSet.fraudRules;
+    }
+
+    /**
+     * The enabled rules for a module. Allocates nothing; a module no rule names gets the rules
+     * that apply to every module.
+     */
+    public ModuleRules getModuleRules(String moduleCode) {
+        RuleSet current = ruleSet;
+        ModuleRules rules = moduleCode != null ? current.modules.get(moduleCode) : null;
+        return rules != null ? rules : current.global;
     }
 
-    @Cacheable(value = "fraudRules", key = "#moduleCode")
     public List<FraudRule> getRulesForModule(String moduleCode) {
-        return fraudRules.stream()
-                .filter(rule -> rule.isEnabled())
-                .filter(rule -> rule.getApplicableModules() == null ||
-                        rule.getApplicableModules().isEmpty() ||
-                        rule.getApplicableModules().contains(moduleCode))
-                .collect(Collectors.toList());
+        return getModuleRules(moduleCode).getFraudRules();
+    }
+
+    public List<CompiledRule> getCompiledRulesForModule(String moduleCode) {
+        return getModuleRules(moduleCode).getAll();
+    }
+
+    public List<CompiledRule> getInternalRules(String moduleCode) {
+        return getModuleRules(moduleCode).getInternal();
     }
 
-    public List<FraudRule> getInternalRules(String moduleCode) {
-        return getRulesForModule(moduleCode).stream()
-                .filter(rule -> "INTERNAL".equals(rule.getRuleType()))
-                .collect(Collectors.toList());
+    public List<ExternalValidatorRule> getExternalRules(String moduleCode) {
+        return getModuleRules(moduleCode).getExternal();
     }
 
-    public List<FraudRule> getExternalRules(String moduleCode) {
-        return getRulesForModule(moduleCode).stream()
-                .filter(rule -> "EXTERNAL".equals(rule.getRuleType()))
-                .collect(Collectors.toList());
+    /**
+     * Rules of the current version that failed to compile and are not evaluated.
+     */
+    public List<QuarantinedRule> getQuarantinedRules() {
+        return ruleSet.quarantined;
     }
 
     public RiskScoreConfig getRiskScoreConfig() {
-        return riskScoreConfig;
+        return ruleSet.riskScoreConfig;
     }
 
     public Integer getCategoryWeight(String category) {
-        return riskScoreConfig.getWeights().getOrDefault(category, 10);
+        return categoryWeight(ruleSet.riskScoreConfig, category);
     }
 
     public String getCategoryDescription(String category) {
-        return riskScoreConfig.getCategoryDescriptions().getOrDefault(category, category);
+        return ruleSet.riskScoreConfig.getCategoryDescriptions().getOrDefault(category, category);
+    }
+
+    private static int categoryWeight(RiskScoreConfig riskScoreConfig, String category) {
+        return riskScoreConfig.getWeights().getOrDefault(category, 10);
+    }
+
+    /**
+     * One loaded version of the MDMS data, with its rules partitioned by every module code the
+     * rules name. Never modified after construction.
+     */
+    private static final class RuleSet {
+
+        private final long version;
+        private final List<FraudRule> fraudRules;
+        private final RiskScoreConfig riskScoreConfig;
+        private final Map<String, ModuleRules> modules;
+        private final ModuleRules global;
+        private final List<QuarantinedRule> quarantined;
+
+        private RuleSet(long version, List<FraudRule> fraudRules, List<CompiledRule> compiledRules,
+                        RiskScoreConfig riskScoreConfig, List<QuarantinedRule> quarantined) {
+            this.version = version;
+            this.fraudRules = fraudRules;
+            this.riskScoreConfig = riskScoreConfig;
+            this.quarantined = List.copyOf(quarantined);
+
+            Set<String> moduleCodes = new HashSet<>();
+            for (FraudRule rule : fraudRules) {
+                if (rule.getApplicableModules() != null) {
+                    moduleCodes.addAll(rule.getApplicableModules());
+                }
+            }
+            Map<String, ModuleRules> partitions = new HashMap<>();
+            for (String moduleCode : moduleCodes) {
+                partitions.put(moduleCode, ModuleRules.of(moduleCode, fraudRules, compiledRules));
+            }
+            this.modules = Collections.unmodifiableMap(partitions);
+            this.global = ModuleRules.of(null, fraudRules, compiledRules);
+        }
+
+        private List<ModuleRules> moduleRules() {
+            List<ModuleRules> all = new ArrayList<>(modules.values());
+            all.add(global);
+            return all;
+        }
     }
 }
@@ -0,0 +1,110 @@
+package org.digit.fraud.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+
+/**
+ * Reloads the MDMS rules when FraudRules.json or RiskScoreConfig.json in
+ * {@code fraud.mdms.directory} changes. Enabled with {@code fraud.mdms.watch=true}.
+ *
+ * Editors and deployment tools often write a file in several steps, so after the first change
+ * the watcher waits {@code fraud.mdms.watch.debounce.ms} and reloads once for all changes seen
+ * in the meantime. A reload that fails leaves the current rules in effect.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "fraud.mdms.watch", havingValue = "true")
+public class MdmsFileWatcher {
+
+    private static final Set<String> FILES = Set.of("FraudRules.json", "RiskScoreConfig.json");
+
+    private final MDMSService mdmsService;
+    private final Path directory;
+    private final long debounceMs;
+    private WatchService watchService;
+    private Thread thread;
+
+    public MdmsFileWatcher(MDMSService mdmsService,
+                           @Value("${fraud.mdms.directory:}") String directory,
+                           @Value("${fraud.mdms.watch.debounce.ms:500}") long debounceMs) {
+        if (directory.isEmpty()) {
+            throw new IllegalStateException("fraud.mdms.watch requires fraud.mdms.directory");
+        }
+        this.mdmsService = mdmsService;
+        this.directory = Path.of(directory);
+        this.debounceMs = debounceMs;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this::watch, "mdms-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching {} for rule changes", directory);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!isRelevant(watchService.take())) {
+                    continue;
+                }
+                Thread.sleep(debounceMs);
+                WatchKey pending;
+                while ((pending = watchService.poll()) != null) {
+                    isRelevant(pending);
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("MDMS watcher stopped");
+        }
+    }
+
+    /**
+     * Consume the key's events and re-arm it.
+     */
+    private boolean isRelevant(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW ||
+                    (event.context() instanceof Path changed && FILES.contains(changed.getFileName().toString()))) {
+                relevant = true;
+            }
+        }
+        if (!key.reset()) {
+            log.warn("MDMS directory {} is no longer accessible; rule changes will not be picked up", directory);
+        }
+        return relevant;
+    }
+
+    private void reload() {
+        try {
+            mdmsService.reload();
+        } catch (IOException | RuntimeException e) {
+            log.error("Rule reload failed, keeping the current rules: {}", e.getMessage());
+        }
+    }
+}
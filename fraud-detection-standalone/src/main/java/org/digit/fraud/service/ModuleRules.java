@@ -0,0 +1,63 @@
+package org.digit.fraud.service;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+import org.digit.fraud.service.rule.CompiledRule;
+import org.digit.fraud.service.rule.ExternalValidatorRule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The enabled rules that apply to one module, split by rule type.
+ *
+ * Built by {@link MDMSService} whenever the MDMS data is loaded, so looking up a module's rules
+ * costs one map lookup. All lists are immutable and keep the MDMS file order.
+ */
+@Getter
+public final class ModuleRules {
+
+    private final List<FraudRule> fraudRules;
+    private final List<CompiledRule> all;
+    private final List<CompiledRule> internal;
+    private final List<ExternalValidatorRule> external;
+
+    private ModuleRules(List<FraudRule> fraudRules, List<CompiledRule> all,
+                        List<CompiledRule> internal, List<ExternalValidatorRule> external) {
+        this.fraudRules = List.copyOf(fraudRules);
+        this.all = List.copyOf(all);
+        this.internal = List.copyOf(internal);
+        this.external = List.copyOf(external);
+    }
+
+    /**
+     * Partition the rules for {@code moduleCode}; null selects only the rules that apply to every module.
+     */
+    static ModuleRules of(String moduleCode, List<FraudRule> fraudRules, List<CompiledRule> compiledRules) {
+        List<FraudRule> applicable = new ArrayList<>();
+        for (FraudRule rule : fraudRules) {
+            List<String> modules = rule.getApplicableModules();
+            if (rule.isEnabled() && (modules == null || modules.isEmpty() ||
+                    (moduleCode != null && modules.contains(moduleCode)))) {
+                applicable.add(rule);
+            }
+        }
+
+        List<CompiledRule> all = new ArrayList<>();
+        List<CompiledRule> internal = new ArrayList<>();
+        List<ExternalValidatorRule> external = new ArrayList<>();
+        for (CompiledRule rule : compiledRules) {
+            if (!rule.isEnabled() || (moduleCode == null ? !rule.getApplicableModules().isEmpty() :
+                    !rule.appliesTo(moduleCode))) {
+                continue;
+            }
+            all.add(rule);
+            if ("INTERNAL".equals(rule.getRuleType())) {
+                internal.add(rule);
+            } else if (rule instanceof ExternalValidatorRule externalRule) {
+                external.add(externalRule);
+            }
+        }
+        return new ModuleRules(applicable, all, internal, external);
+    }
+}
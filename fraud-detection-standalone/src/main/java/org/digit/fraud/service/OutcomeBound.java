@@ -0,0 +1,90 @@
+package org.digit.fraud.service;
+
+import org.digit.fraud.model.FraudEvaluationResponse.RuleResult;
+import org.digit.fraud.service.rule.CompiledRule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Score bookkeeping for short-circuit evaluation of one request.
+ *
+ * Tracks the score awarded so far and the score the rules not yet evaluated could still add.
+ * Scores only grow, so once the recommendation at the current score equals the one at the
+ * highest reachable score, and no remaining CRITICAL rule could force AUTO_REJECT, the remaining
+ * rules cannot change the outcome. Not thread-safe.
+ */
+final class OutcomeBound {
+
+    private final int approveThreshold;
+    private final int autoRejectThreshold;
+    private final List<String> skipped = new ArrayList<>();
+    private int score;
+    private boolean rejected;
+    private int remainingScore;
+    private int remainingCritical;
+
+    OutcomeBound(int approveThreshold, int autoRejectThreshold) {
+        this.approveThreshold = approveThreshold;
+        this.autoRejectThreshold = autoRejectThreshold;
+    }
+
+    /**
+     * Add rules that will be evaluated, or skipped, for this request.
+     */
+    void expect(Collection<? extends CompiledRule> rules) {
+        for (CompiledRule rule : rules) {
+            remainingScore += rule.getScore();
+            if (isCritical(rule)) {
+                remainingCritical++;
+            }
+        }
+    }
+
+    /**
+     * Account for an evaluated rule; {@code result} is null if the evaluation failed.
+     */
+    void record(CompiledRule rule, RuleResult result) {
+        release(rule);
+        if (result != null && result.isTriggered()) {
+            score += result.getScore();
+            rejected |= "CRITICAL".equals(result.getSeverity()) ||
+                    (result.getMessage() != null && result.getMessage().contains("AUTO_REJECT"));
+        }
+    }
+
+    void skip(CompiledRule rule) {
+        release(rule);
+        skipped.add(rule.getCode());
+    }
+
+    /**
+     * True if no outcome of the remaining rules can change the recommendation.
+     */
+    boolean isDecided() {
+        if (rejected || score >= autoRejectThreshold) {
+            return true;
+        }
+        if (remainingCritical > 0) {
+            return false;
+        }
+        int reachable = Math.min(score + remainingScore, 100);
+        return reachable < autoRejectThreshold && (score > approveThreshold || reachable <= approveThreshold);
+    }
+
+    List<String> getSkipped() {
+        return skipped;
+    }
+
+    private void release(CompiledRule rule) {
+        remainingScore -= rule.getScore();
+        if (isCritical(rule)) {
+            remainingCritical--;
+        }
+    }
+
+    private static boolean isCritical(CompiledRule rule) {
+        return "CRITICAL".equals(rule.getSeverity());
+    }
+}
@@ -0,0 +1,56 @@
+package org.digit.fraud.service;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.springframework.expression.EvaluationContext;
+
+import java.util.function.BiFunction;
+
+/**
+ * Per-request state shared by every internal rule evaluated for one {@link FraudEvaluationRequest}.
+ *
+ * Built once by the caller before the rule loop. Derived values are computed on first use
+ * and then reused by the remaining rules. Not thread-safe.
+ *
+ * A verbose request gets a detailed result for every rule; otherwise rules that do not trigger
+ * return their shared pass result. Every rule evaluates the request as of the same {@code now}.
+ */
+public final class PreparedRequest {
+
+    @Getter
+    private final FraudEvaluationRequest request;
+    @Getter
+    private final boolean verbose;
+    /** The time the request is evaluated at, epoch millis. */
+    @Getter
+    private final long now;
+    private EvidenceIndex evidence;
+    private EvaluationContext expressionContext;
+
+    public PreparedRequest(FraudEvaluationRequest request, boolean verbose, long now) {
+        this.request = request;
+        this.verbose = verbose;
+        this.now = now;
+    }
+
+    /**
+     * The request's evidence, indexed on first use.
+     */
+    public EvidenceIndex getEvidence() {
+        if (evidence == null) {
+            evidence = new EvidenceIndex(request);
+        }
+        return evidence;
+    }
+
+    /**
+     * The SpEL context shared by the request's CUSTOM rules, created by {@code factory} from the
+     * request and {@link #getNow()} on first use.
+     */
+    public EvaluationContext getExpressionContext(BiFunction<FraudEvaluationRequest, Long, EvaluationContext> factory) {
+        if (expressionContext == null) {
+            expressionContext = factory.apply(request, now);
+        }
+        return expressionContext;
+    }
+}
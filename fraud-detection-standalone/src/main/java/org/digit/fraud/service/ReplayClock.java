@@ -0,0 +1,57 @@
+package org.digit.fraud.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The application clock during bulk re-scoring. {@link BulkRescoringService} sets it to the
+ * submission time of each record before evaluating it, so the time-based rules, the submission
+ * history and the scheduled state eviction see the replayed history as it happened instead of
+ * as one burst at the current time.
+ *
+ * Starts at the current time. Views from {@link #withZone} share the same instant.
+ */
+public final class ReplayClock extends Clock {
+
+    private final AtomicLong millis;
+    private final ZoneId zone;
+
+    public ReplayClock() {
+        this(new AtomicLong(System.currentTimeMillis()), ZoneOffset.UTC);
+    }
+
+    private ReplayClock(AtomicLong millis, ZoneId zone) {
+        this.millis = millis;
+        this.zone = zone;
+    }
+
+    /**
+     * Move the clock to {@code epochMillis}, backwards if the input is not in time order.
+     */
+    public void set(long epochMillis) {
+        millis.set(epochMillis);
+    }
+
+    @Override
+    public long millis() {
+        return millis.get();
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis.get());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new ReplayClock(millis, zone);
+    }
+}
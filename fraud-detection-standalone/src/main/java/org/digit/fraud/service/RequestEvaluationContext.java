@@ -0,0 +1,95 @@
+package org.digit.fraud.service;
+
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SpEL context over one {@link FraudEvaluationRequest} that resolves variables on demand.
+ *
+ * Nothing is copied into the context up front: {@code #name} is looked up in the predictions,
+ * then in {@code additionalData}, then among the built-in variables listed on
+ * {@link ExpressionEvaluatorService}, which gives the same precedence as setting them in that
+ * order. The reflective property accessor, and with it its method cache, is shared by all
+ * contexts. A context is not thread-safe; it may be reused by every rule evaluated for the
+ * same request on one thread.
+ */
+final class RequestEvaluationContext extends StandardEvaluationContext {
+
+    private static final List<PropertyAccessor> PROPERTY_ACCESSORS = List.of(new ReflectivePropertyAccessor());
+
+    private final FraudEvaluationRequest request;
+    private final Map<String, Object> predictions;
+    private final long now;
+
+    RequestEvaluationContext(FraudEvaluationRequest request, Map<String, Object> predictions) {
+        this(request, predictions, System.currentTimeMillis());
+    }
+
+    /**
+     * @param now the value of {@code #now}, epoch millis
+     */
+    RequestEvaluationContext(FraudEvaluationRequest request, Map<String, Object> predictions, long now) {
+        super(request);
+        this.request = request;
+        this.predictions = predictions;
+        this.now = now;
+        setPropertyAccessors(PROPERTY_ACCESSORS);
+    }
+
+    @Override
+    public Object lookupVariable(String name) {
+        Object explicit = super.lookupVariable(name);
+        if (explicit != null) {
+            return explicit;
+        }
+        if ("now".equals(name)) {
+            return now;
+        }
+        if (predictions != null) {
+            if (predictions.containsKey(name)) {
+                return predictions.get(name);
+            }
+            if ("predictions".equals(name)) {
+                return predictions;
+            }
+        }
+        Map<String, Object> additionalData = request.getAdditionalData();
+        if (additionalData != null) {
+            if (additionalData.containsKey(name)) {
+                return additionalData.get(name);
+            }
+            if ("additionalData".equals(name)) {
+                return additionalData;
+            }
+        }
+        return builtInVariable(name);
+    }
+
+    private Object builtInVariable(String name) {
+        FraudEvaluationRequest.ApplicantInfo applicant = request.getApplicantInfo();
+        FraudEvaluationRequest.LocationData location = request.getLocationData();
+        List<FraudEvaluationRequest.EvidenceData> evidences = request.getEvidences();
+
+        return switch (name) {
+            case "request" -> request;
+            case "applicantInfo" -> applicant;
+            case "applicantId" -> applicant != null ? applicant.getApplicantId() : null;
+            case "applicantName" -> applicant != null ? applicant.getName() : null;
+            case "deviceId" -> applicant != null ? applicant.getDeviceId() : null;
+            case "mobileNumber" -> applicant != null ? applicant.getMobileNumber() : null;
+            case "locationData" -> location;
+            case "latitude" -> location != null ? location.getLatitude() : null;
+            case "longitude" -> location != null ? location.getLongitude() : null;
+            case "locality" -> location != null ? location.getLocality() : null;
+            case "evidences" -> evidences;
+            case "evidenceCount" -> evidences != null ? evidences.size() : null;
+            case "metadata" -> evidences != null && !evidences.isEmpty() ? evidences.get(0).getMetadata() : null;
+            default -> null;
+        };
+    }
+}
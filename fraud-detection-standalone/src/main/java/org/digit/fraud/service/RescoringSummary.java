@@ -0,0 +1,73 @@
+package org.digit.fraud.service;
+
+import org.digit.fraud.model.FraudEvaluationResponse;
+import org.digit.fraud.model.FraudEvaluationResponse.RuleResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregates of a bulk re-scoring run: a histogram of total scores in buckets of ten, counts
+ * per recommendation and risk level, and how often each rule triggered. Memory is bounded by
+ * the number of distinct rules, not the number of records. Not thread-safe.
+ *
+ * The evaluation type, e.g. {@code INTERNAL}, tells which rules the scores cover.
+ */
+public class RescoringSummary {
+
+    private static final int BUCKET_WIDTH = 10;
+
+    private final String evaluationType;
+    private final long[] scoreBuckets = new long[100 / BUCKET_WIDTH + 1];
+    private final Map<String, Long> recommendations = new TreeMap<>();
+    private final Map<String, Long> riskLevels = new TreeMap<>();
+    private final Map<String, Long> triggeredRules = new TreeMap<>();
+    private long records;
+    private long scoreSum;
+
+    public RescoringSummary(String evaluationType) {
+        this.evaluationType = evaluationType;
+    }
+
+    public void add(FraudEvaluationResponse response) {
+        int score = response.getTotalScore() != null ? response.getTotalScore() : 0;
+        records++;
+        scoreSum += score;
+        scoreBuckets[Math.min(Math.max(score, 0), 100) / BUCKET_WIDTH]++;
+        recommendations.merge(String.valueOf(response.getRecommendation()), 1L, Long::sum);
+        riskLevels.merge(String.valueOf(response.getRiskLevel()), 1L, Long::sum);
+        if (response.getRuleResults() != null) {
+            for (RuleResult result : response.getRuleResults()) {
+                if (result.isTriggered()) {
+                    triggeredRules.merge(result.getRuleCode(), 1L, Long::sum);
+                }
+            }
+        }
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * JSON-friendly view of the aggregates.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < scoreBuckets.length; i++) {
+            int from = i * BUCKET_WIDTH;
+            String label = from >= 100 ? "100" : from + "-" + (from + BUCKET_WIDTH - 1);
+            histogram.put(label, scoreBuckets[i]);
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("evaluationType", evaluationType);
+        summary.put("records", records);
+        summary.put("meanScore", records > 0 ? (double) scoreSum / records : 0.0);
+        summary.put("scoreHistogram", histogram);
+        summary.put("recommendations", recommendations);
+        summary.put("riskLevels", riskLevels);
+        summary.put("triggeredRules", triggeredRules);
+        return summary;
+    }
+}
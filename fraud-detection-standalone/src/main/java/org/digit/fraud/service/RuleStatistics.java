@@ -0,0 +1,291 @@
+package org.digit.fraud.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.digit.fraud.model.FraudEvaluationResponse.RuleResult;
+import org.digit.fraud.service.rule.CompiledRule;
+import org.digit.fraud.service.rule.ConditionType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live latency and trigger statistics per rule code, and the evaluation order derived from them.
+ *
+ * Every evaluation is recorded with lock-free counters plus exponentially weighted moving
+ * averages of latency and trigger rate, so recent behaviour outweighs history. Every
+ * {@code fraud.rules.statistics.refresh.interval.ms} the rules are ranked by expected cost per
+ * unit of score they decide: {@code latency / ((triggerRate + 0.01) * score)}. Cheap rules that
+ * often trigger with a high score come first. Rules with fewer than
+ * {@code fraud.rules.statistics.min-samples} evaluations are ranked from a latency estimate for
+ * their condition type's cost tier instead. Each refresh, and each rule-set version
+ * {@link MDMSService} installs, sorts every module's internal rules once into an immutable list,
+ * so requests neither sort nor see the ranking change mid-sort.
+ *
+ * The moving averages are updated without locking; concurrent updates may occasionally be lost,
+ * which only slows adaptation. When a new rule-set version is installed, statistics and meters of
+ * rules that were deleted, or whose score or condition type changed, are dropped; changed rules
+ * start over from their prior.
+ *
+ * Each evaluation is also exported to Micrometer: timers {@code fraud.rule.evaluation} (tags
+ * {@code rule}, {@code conditionType}) and {@code fraud.rule.condition.evaluation} (tag
+ * {@code conditionType}), and counters {@code fraud.rule.triggered} and {@code fraud.rule.errors}.
+ * Percentiles and histograms are configured with {@code management.metrics.distribution.*}.
+ */
+@Slf4j
+@Service
+public class RuleStatistics {
+
+    /** Latency assumed for each {@link ConditionType#getCost()} tier until a rule has enough samples. */
+    private static final double[] PRIOR_NANOS = {1_000, 10_000, 100_000, 10_000_000};
+    private static final double PRIOR_TRIGGER_RATE = 0.1;
+    private static final double RATE_FLOOR = 0.01;
+    /** Weight of a new sample in the moving averages, roughly the last 50 evaluations. */
+    private static final double ALPHA = 0.02;
+
+    private final MeterRegistry meterRegistry;
+    private final long minSamples;
+    private final ConcurrentHashMap<String, Stats> stats = new ConcurrentHashMap<>();
+    private List<ModuleRules> installed = List.of();
+    /** Rules of the installed version by code; only these get statistics. */
+    private volatile Map<String, CompiledRule> installedRules = Map.of();
+    private volatile Ranking ranking = new Ranking(Map.of(), Map.of());
+
+    public RuleStatistics(MeterRegistry meterRegistry,
+                          @Value("${fraud.rules.statistics.min-samples:100}") long minSamples) {
+        this.meterRegistry = meterRegistry;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Record one evaluation; {@code result} is null if the evaluation failed.
+     */
+    public void record(CompiledRule rule, long nanos, RuleResult result) {
+        Stats ruleStats = stats.get(rule.getCode());
+        if (ruleStats == null) {
+            if (installedRules.get(rule.getCode()) != rule) {
+                // Still in flight from a replaced version
+                return;
+            }
+            ruleStats = stats.computeIfAbsent(rule.getCode(), code -> new Stats(rule, meterRegistry));
+        }
+        ruleStats.record(nanos, result);
+    }
+
+    /**
+     * The internal rules of {@code rules}, cheapest expected cost first, then highest score, as
+     * ranked by the last refresh. Rules of a version no longer installed keep their MDMS order.
+     */
+    public List<CompiledRule> evaluationOrder(ModuleRules rules) {
+        List<CompiledRule> ordered = ranking.orders.get(rules);
+        return ordered != null ? ordered : rules.getInternal();
+    }
+
+    /**
+     * Called by {@link MDMSService} with every module partition of a new rule-set version, before
+     * the version is served.
+     */
+    public synchronized void install(long version, Collection<ModuleRules> modules) {
+        Map<String, CompiledRule> rules = new HashMap<>();
+        for (ModuleRules moduleRules : modules) {
+            for (CompiledRule rule : moduleRules.getAll()) {
+                rules.put(rule.getCode(), rule);
+            }
+        }
+        installed = List.copyOf(modules);
+        installedRules = rules;
+        int dropped = prune();
+        Map<String, Double> ranks = new HashMap<>(ranking.ranks);
+        ranks.keySet().retainAll(stats.keySet());
+        ranking = order(ranks);
+        log.info("Installed rule-set version {}: dropped statistics of {} deleted or changed rules", version, dropped);
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.rules.statistics.refresh.interval.ms:10000}")
+    public synchronized void refreshRanks() {
+        // Catches statistics a request of a replaced version created while the new one was installed
+        prune();
+        Map<String, Double> refreshed = new HashMap<>();
+        stats.forEach((code, ruleStats) -> {
+            if (ruleStats.evaluations.sum() >= minSamples) {
+                refreshed.put(code, rank(ruleStats.recentNanos, ruleStats.recentTriggerRate, ruleStats.score));
+            }
+        });
+        ranking = order(refreshed);
+        log.debug("Refreshed evaluation ranks of {} rules", refreshed.size());
+    }
+
+    /**
+     * Statistics per rule code, in evaluation order.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Double> ranks = ranking.ranks;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Stats ruleStats : stats.values()) {
+            Map<String, Object> row = ruleStats.toMap();
+            row.put("rank", rank(ranks, ruleStats.code, ruleStats.conditionType, ruleStats.score));
+            rows.add(row);
+        }
+        rows.sort(Comparator.comparingDouble(row -> (Double) row.get("rank")));
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            snapshot.put((String) row.remove("code"), row);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drop the statistics and per-rule meters of rules the installed version does not contain
+     * with the same score and condition type.
+     */
+    private int prune() {
+        Map<String, CompiledRule> rules = installedRules;
+        int dropped = 0;
+        for (Stats ruleStats : stats.values()) {
+            CompiledRule rule = rules.get(ruleStats.code);
+            if ((rule == null || !ruleStats.tracks(rule)) && stats.remove(ruleStats.code, ruleStats)) {
+                ruleStats.removeMeters(meterRegistry);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Sort every installed module's internal rules against one fixed set of ranks.
+     */
+    private Ranking order(Map<String, Double> ranks) {
+        Comparator<CompiledRule> evaluationOrder = Comparator
+                .comparingDouble((CompiledRule rule) ->
+                        rank(ranks, rule.getCode(), rule.getConditionType(), rule.getScore()))
+                .thenComparing(Comparator.comparingInt(CompiledRule::getScore).reversed());
+        Map<ModuleRules, List<CompiledRule>> orders = new IdentityHashMap<>();
+        for (ModuleRules rules : installed) {
+            List<CompiledRule> ordered = new ArrayList<>(rules.getInternal());
+            ordered.sort(evaluationOrder);
+            orders.put(rules, List.copyOf(ordered));
+        }
+        return new Ranking(ranks, orders);
+    }
+
+    private static double rank(Map<String, Double> ranks, String code, ConditionType conditionType, int score) {
+        Double rank = ranks.get(code);
+        if (rank != null) {
+            return rank;
+        }
+        int tier = Math.min(conditionType.getCost(), PRIOR_NANOS.length - 1);
+        return rank(PRIOR_NANOS[tier], PRIOR_TRIGGER_RATE, score);
+    }
+
+    private static double rank(double nanos, double triggerRate, int score) {
+        return nanos / ((triggerRate + RATE_FLOOR) * Math.max(score, 1));
+    }
+
+    /**
+     * Ranks by rule code and the evaluation order derived from them, published together.
+     */
+    private record Ranking(Map<String, Double> ranks, Map<ModuleRules, List<CompiledRule>> orders) {
+    }
+
+    private static final class Stats {
+
+        private final String code;
+        private final ConditionType conditionType;
+        private final int score;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder triggered = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private volatile double recentNanos;
+        private volatile double recentTriggerRate;
+        private final Timer ruleTimer;
+        private final Timer conditionTimer;
+        private final Counter triggeredCounter;
+        private final Counter errorCounter;
+
+        Stats(CompiledRule rule, MeterRegistry registry) {
+            this.code = rule.getCode();
+            this.conditionType = rule.getConditionType();
+            this.score = rule.getScore();
+            String type = conditionType.name();
+            this.ruleTimer = Timer.builder("fraud.rule.evaluation")
+                    .description("Time to evaluate one rule")
+                    .tag("rule", code)
+                    .tag("conditionType", type)
+                    .register(registry);
+            this.conditionTimer = Timer.builder("fraud.rule.condition.evaluation")
+                    .description("Time to evaluate one rule, by condition type")
+                    .tag("conditionType", type)
+                    .register(registry);
+            this.triggeredCounter = registry.counter("fraud.rule.triggered", "rule", code, "conditionType", type);
+            this.errorCounter = registry.counter("fraud.rule.errors", "rule", code, "conditionType", type);
+            int tier = Math.min(conditionType.getCost(), PRIOR_NANOS.length - 1);
+            this.recentNanos = PRIOR_NANOS[tier];
+            this.recentTriggerRate = PRIOR_TRIGGER_RATE;
+        }
+
+        boolean tracks(CompiledRule rule) {
+            return conditionType == rule.getConditionType() && score == rule.getScore();
+        }
+
+        /**
+         * The condition type timer is shared by every rule of that type and stays registered.
+         */
+        void removeMeters(MeterRegistry registry) {
+            registry.remove(ruleTimer);
+            registry.remove(triggeredCounter);
+            registry.remove(errorCounter);
+        }
+
+        void record(long nanos, RuleResult result) {
+            evaluations.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            ruleTimer.record(nanos, TimeUnit.NANOSECONDS);
+            conditionTimer.record(nanos, TimeUnit.NANOSECONDS);
+            boolean hit = result != null && result.isTriggered();
+            if (hit) {
+                triggered.increment();
+                triggeredCounter.increment();
+            } else if (result == null) {
+                errors.increment();
+                errorCounter.increment();
+            }
+            recentNanos += ALPHA * (nanos - recentNanos);
+            recentTriggerRate += ALPHA * ((hit ? 1.0 : 0.0) - recentTriggerRate);
+        }
+
+        Map<String, Object> toMap() {
+            long count = evaluations.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("code", code);
+            map.put("conditionType", conditionType.name());
+            map.put("score", score);
+            map.put("evaluations", count);
+            map.put("triggered", triggered.sum());
+            map.put("errors", errors.sum());
+            map.put("triggerRate", count > 0 ? (double) triggered.sum() / count : 0.0);
+            map.put("recentTriggerRate", recentTriggerRate);
+            map.put("meanMicros", count > 0 ? totalNanos.sum() / count / 1000.0 : 0.0);
+            map.put("recentMeanMicros", recentNanos / 1000.0);
+            map.put("maxMicros", maxNanos.get() / 1000.0);
+            return map;
+        }
+    }
+}
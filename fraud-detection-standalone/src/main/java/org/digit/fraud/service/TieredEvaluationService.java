@@ -0,0 +1,96 @@
+package org.digit.fraud.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.digit.fraud.model.EvaluationStageEvent;
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.model.FraudEvaluationResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tiered evaluations for {@code /v1/_evaluateTiered}: the caller gets the provisional score of
+ * the internal rules at once, and the external rules are merged in on the bounded
+ * {@code asyncEvaluationExecutor}, see {@link FraudDetectionService#evaluateTiered}.
+ *
+ * Every stage is published as an {@link EvaluationStageEvent}. Listeners run on the thread that
+ * produced the stage, which is the request thread for the first one, so slow listeners should be
+ * asynchronous; a failing listener is logged and does not affect the evaluation.
+ *
+ * The latest merged response per applicationId is kept in a Caffeine cache bounded by
+ * {@code fraud.tiered.store.max-size} and expired {@code fraud.tiered.store.ttl-minutes} after the
+ * last update. A new tiered evaluation of an application replaces it, and later stages of the
+ * evaluation it replaced are no longer stored.
+ */
+@Slf4j
+@Service
+public class TieredEvaluationService {
+
+    private final FraudDetectionService fraudDetectionService;
+    private final AsyncTaskExecutor executor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache<String, FraudEvaluationResponse> latest;
+
+    public TieredEvaluationService(FraudDetectionService fraudDetectionService,
+                                   @Qualifier("asyncEvaluationExecutor") AsyncTaskExecutor executor,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${fraud.tiered.store.max-size:100000}") long maxEntries,
+                                   @Value("${fraud.tiered.store.ttl-minutes:60}") long ttlMinutes) {
+        this.fraudDetectionService = fraudDetectionService;
+        this.executor = executor;
+        this.eventPublisher = eventPublisher;
+        this.latest = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    /**
+     * Evaluate the internal rules and start merging in the external ones.
+     *
+     * @return the provisional response, or the final one if there is nothing left to merge
+     */
+    public FraudEvaluationResponse evaluate(FraudEvaluationRequest request) {
+        AtomicBoolean started = new AtomicBoolean();
+        return fraudDetectionService.evaluateTiered(request, executor,
+                (response, ruleCode) -> onStage(response, ruleCode, started.compareAndSet(false, true)));
+    }
+
+    /**
+     * @return the latest merged response for the application, or null if it is unknown or has expired
+     */
+    public FraudEvaluationResponse getLatest(String applicationId) {
+        return latest.getIfPresent(applicationId);
+    }
+
+    private void onStage(FraudEvaluationResponse response, String ruleCode, boolean first) {
+        if (response.getApplicationId() != null) {
+            latest.asMap().compute(response.getApplicationId(), (applicationId, current) ->
+                    first || current == null || current.getEvaluationId().equals(response.getEvaluationId()) ?
+                            response : current);
+        }
+
+        log.debug("Tiered evaluation {} of application {}: stage {}, score {}",
+                response.getEvaluationId(), response.getApplicationId(), response.getStage(), response.getTotalScore());
+
+        try {
+            eventPublisher.publishEvent(EvaluationStageEvent.builder()
+                    .evaluationId(response.getEvaluationId())
+                    .applicationId(response.getApplicationId())
+                    .stage(response.getStage())
+                    .ruleCode(ruleCode)
+                    .response(response)
+                    .build());
+        } catch (RuntimeException e) {
+            log.warn("Listener for stage {} of tiered evaluation {} failed: {}",
+                    response.getStage(), response.getEvaluationId(), e.getMessage());
+        }
+    }
+}
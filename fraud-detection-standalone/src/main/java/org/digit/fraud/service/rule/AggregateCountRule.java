@@ -0,0 +1,27 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * AGGREGATE_COUNT: flags applicants exceeding a submission cap over a number of days.
+ */
+@Getter
+public final class AggregateCountRule extends CompiledRule {
+
+    private final long threshold;
+    private final long periodDays;
+    private final long periodMs;
+
+    public AggregateCountRule(FraudRule rule, int score, long threshold, long periodDays, long periodMs) {
+        super(rule, score);
+        this.threshold = threshold;
+        this.periodDays = periodDays;
+        this.periodMs = periodMs;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.AGGREGATE_COUNT;
+    }
+}
@@ -0,0 +1,22 @@
+package org.digit.fraud.service.rule;
+
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.springframework.expression.EvaluationContext;
+
+import java.util.function.Supplier;
+
+/**
+ * A rule expression parsed and validated when the rules are loaded, so evaluating it involves
+ * no parsing or cache lookup.
+ */
+public interface CompiledExpression {
+
+    String getText();
+
+    /**
+     * @param context The request's SpEL context, created only for expressions that need it
+     * @return true if the expression evaluates to {@code true}
+     * @throws org.springframework.expression.EvaluationException if evaluation fails
+     */
+    boolean matches(FraudEvaluationRequest request, Supplier<EvaluationContext> context);
+}
@@ -0,0 +1,66 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudEvaluationResponse.RuleResult;
+import org.digit.fraud.model.FraudRule;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, pre-parsed form of a {@link FraudRule}.
+ *
+ * The raw condition map is read exactly once, when MDMS data is loaded, and its values are
+ * kept in typed fields on the concrete subclasses. The score awarded when the rule triggers
+ * is also resolved at load time from the category weight and severity.
+ */
+@Getter
+public abstract class CompiledRule {
+
+    private final String id;
+    private final String code;
+    private final String name;
+    private final String category;
+    private final String severity;
+    private final String ruleType;
+    private final boolean external;
+    private final boolean enabled;
+    private final List<String> applicableModules;
+    private final int score;
+    /** Shared non-triggered result, returned when the caller does not want details. Never modify it. */
+    private final RuleResult passResult;
+
+    protected CompiledRule(FraudRule rule, int score) {
+        this.id = rule.getId();
+        this.code = rule.getCode();
+        this.name = rule.getName();
+        this.category = rule.getCategory();
+        this.severity = rule.getSeverity();
+        this.ruleType = rule.getRuleType();
+        this.external = "EXTERNAL".equals(rule.getRuleType());
+        this.enabled = rule.isEnabled();
+        this.applicableModules = rule.getApplicableModules() != null ?
+                List.copyOf(rule.getApplicableModules()) : List.of();
+        this.score = score;
+        this.passResult = RuleResult.builder()
+                .ruleId(id)
+                .ruleCode(code)
+                .ruleName(name)
+                .category(category)
+                .severity(severity)
+                .triggered(false)
+                .score(0)
+                .message("Passed")
+                .details(Map.of())
+                .build();
+    }
+
+    /**
+     * A rule with no applicable modules applies to every module.
+     */
+    public boolean appliesTo(String moduleCode) {
+        return applicableModules.isEmpty() || applicableModules.contains(moduleCode);
+    }
+
+    public abstract ConditionType getConditionType();
+}
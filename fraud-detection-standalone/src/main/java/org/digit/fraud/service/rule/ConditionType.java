@@ -0,0 +1,60 @@
+package org.digit.fraud.service.rule;
+
+/**
+ * Condition types understood by the rule engine, resolved once when a rule is compiled.
+ *
+ * Each type carries a relative evaluation cost, used to order rules when evaluation may stop
+ * early until their measured latency is known, and whether evaluating it updates the fraud
+ * state. Rules of the latter kind are never skipped, or later requests would not see this one.
+ */
+public enum ConditionType {
+    NULL_CHECK(0, false),
+    GEO_BOUNDARY(0, false),
+    GEO_DISTANCE(0, false),
+    VELOCITY(1, false),
+    TIMESTAMP_AGE(0, false),
+    TIMESTAMP_DIFF(0, false),
+    HASH_MATCH(1, true),
+    IMAGE_SIMILARITY(2, true),
+    INTERVAL(1, false),
+    DEVICE_SHARING(1, true),
+    GEO_CLUSTER(2, false),
+    METADATA_CHECK(0, false),
+    TIME_WINDOW(0, false),
+    AGGREGATE_COUNT(1, false),
+    GPS_VELOCITY(1, false),
+    CUSTOM(2, false),
+    EXTERNAL_VALIDATOR(3, false),
+    UNKNOWN(0, false);
+
+    private final int cost;
+    private final boolean recordsState;
+
+    ConditionType(int cost, boolean recordsState) {
+        this.cost = cost;
+        this.recordsState = recordsState;
+    }
+
+    /**
+     * 0 for checks on the request alone, 1 for fraud state lookups, 2 for index scans and
+     * expressions, 3 for remote calls.
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    public boolean recordsState() {
+        return recordsState;
+    }
+
+    public static ConditionType fromCode(String code) {
+        if (code == null) {
+            return UNKNOWN;
+        }
+        try {
+            return valueOf(code);
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * CUSTOM: a SpEL expression evaluated against the request, validated when the rule is compiled.
+ */
+@Getter
+public final class CustomExpressionRule extends CompiledRule {
+
+    private final String expression;
+    private final CompiledExpression compiled;
+
+    public CustomExpressionRule(FraudRule rule, int score, String expression, CompiledExpression compiled) {
+        super(rule, score);
+        this.expression = expression;
+        this.compiled = compiled;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.CUSTOM;
+    }
+}
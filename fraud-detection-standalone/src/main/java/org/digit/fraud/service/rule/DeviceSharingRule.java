@@ -0,0 +1,24 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * DEVICE_SHARING: flags devices used by several applicants within the device window,
+ * {@code fraud.state.devices.retention-hours}.
+ */
+@Getter
+public final class DeviceSharingRule extends CompiledRule {
+
+    private final int minUniqueUsers;
+
+    public DeviceSharingRule(FraudRule rule, int score, int minUniqueUsers) {
+        super(rule, score);
+        this.minUniqueUsers = minUniqueUsers;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.DEVICE_SHARING;
+    }
+}
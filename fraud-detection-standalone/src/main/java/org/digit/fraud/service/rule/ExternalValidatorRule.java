@@ -0,0 +1,53 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * EXTERNAL rule backed by an AI/ML validator.
+ */
+@Getter
+public final class ExternalValidatorRule extends CompiledRule {
+
+    private final String validatorId;
+    private final Validator validator;
+    /** SpEL over the validator's predictions; null if the rule has none. */
+    private final CompiledExpression check;
+    private final Double minConfidence;
+
+    public ExternalValidatorRule(FraudRule rule, int score, String validatorId, Validator validator, CompiledExpression check, Double minConfidence) {
+        super(rule, score);
+        this.validatorId = validatorId;
+        this.validator = validator;
+        this.check = check;
+        this.minConfidence = minConfidence;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.EXTERNAL_VALIDATOR;
+    }
+
+    /**
+     * Validators known to {@code ExternalValidatorService}.
+     */
+    public enum Validator {
+        OBJECT_DETECTOR,
+        FACE_MATCHER,
+        IMAGE_QUALITY_ANALYZER,
+        ANOMALY_DETECTOR,
+        GPS_SPOOFING_DETECTOR,
+        UNKNOWN;
+
+        public static Validator fromId(String validatorId) {
+            if (validatorId == null) {
+                return UNKNOWN;
+            }
+            try {
+                return valueOf(validatorId);
+            } catch (IllegalArgumentException e) {
+                return UNKNOWN;
+            }
+        }
+    }
+}
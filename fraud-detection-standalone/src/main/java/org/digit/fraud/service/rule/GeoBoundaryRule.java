@@ -0,0 +1,31 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * GEO_BOUNDARY: flags locations outside the tenant's bounding box.
+ */
+@Getter
+public final class GeoBoundaryRule extends CompiledRule {
+
+    private final String boundaryType;
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+
+    public GeoBoundaryRule(FraudRule rule, int score, String boundaryType, double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        super(rule, score);
+        this.boundaryType = boundaryType;
+        this.minLatitude = minLatitude;
+        this.maxLatitude = maxLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLongitude = maxLongitude;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.GEO_BOUNDARY;
+    }
+}
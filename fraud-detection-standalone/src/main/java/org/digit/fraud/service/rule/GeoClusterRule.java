@@ -0,0 +1,30 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * GEO_CLUSTER: flags many submissions from the same spot within a time window.
+ */
+@Getter
+public final class GeoClusterRule extends CompiledRule {
+
+    private final double radiusMeters;
+    private final long windowHours;
+    private final long windowMs;
+    private final int minCount;
+
+    public GeoClusterRule(FraudRule rule, int score, double radiusMeters, long windowHours, long windowMs,
+                          int minCount) {
+        super(rule, score);
+        this.radiusMeters = radiusMeters;
+        this.windowHours = windowHours;
+        this.windowMs = windowMs;
+        this.minCount = minCount;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.GEO_CLUSTER;
+    }
+}
@@ -0,0 +1,23 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * GEO_DISTANCE: flags dog photos and selfies taken too far apart.
+ */
+@Getter
+public final class GeoDistanceRule extends CompiledRule {
+
+    private final double maxDistanceMeters;
+
+    public GeoDistanceRule(FraudRule rule, int score, double maxDistanceMeters) {
+        super(rule, score);
+        this.maxDistanceMeters = maxDistanceMeters;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.GEO_DISTANCE;
+    }
+}
@@ -0,0 +1,25 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * GPS_VELOCITY: flags physically impossible travel between consecutive submissions.
+ */
+@Getter
+public final class GpsVelocityRule extends CompiledRule {
+
+    private final double maxSpeedKmh;
+    private final long minIntervalMinutes;
+
+    public GpsVelocityRule(FraudRule rule, int score, double maxSpeedKmh, long minIntervalMinutes) {
+        super(rule, score);
+        this.maxSpeedKmh = maxSpeedKmh;
+        this.minIntervalMinutes = minIntervalMinutes;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.GPS_VELOCITY;
+    }
+}
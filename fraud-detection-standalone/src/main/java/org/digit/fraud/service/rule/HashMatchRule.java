@@ -0,0 +1,23 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * HASH_MATCH: flags evidence whose content hash was already seen on another application.
+ */
+@Getter
+public final class HashMatchRule extends CompiledRule {
+
+    private final String field;
+
+    public HashMatchRule(FraudRule rule, int score, String field) {
+        super(rule, score);
+        this.field = field;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.HASH_MATCH;
+    }
+}
@@ -0,0 +1,36 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * IMAGE_SIMILARITY: flags photos perceptually similar to earlier submissions.
+ *
+ * The similarity threshold is converted at compile time into the largest Hamming distance
+ * between two 64-bit perceptual hashes that still counts as a match.
+ */
+@Getter
+public final class ImageSimilarityRule extends CompiledRule {
+
+    private final double threshold;
+    private final int maxDistance;
+    private final long lookbackDays;
+    private final long lookbackMs;
+    /** Evidence purpose to check, or null to check every evidence. */
+    private final String purpose;
+
+    public ImageSimilarityRule(FraudRule rule, int score, double threshold, int maxDistance,
+                               long lookbackDays, long lookbackMs, String purpose) {
+        super(rule, score);
+        this.threshold = threshold;
+        this.maxDistance = maxDistance;
+        this.lookbackDays = lookbackDays;
+        this.lookbackMs = lookbackMs;
+        this.purpose = purpose;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.IMAGE_SIMILARITY;
+    }
+}
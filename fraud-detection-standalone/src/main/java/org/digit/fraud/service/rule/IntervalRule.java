@@ -0,0 +1,25 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * INTERVAL: flags applicants submitting again before the minimum interval has passed.
+ */
+@Getter
+public final class IntervalRule extends CompiledRule {
+
+    private final long minIntervalMinutes;
+    private final long minIntervalMs;
+
+    public IntervalRule(FraudRule rule, int score, long minIntervalMinutes, long minIntervalMs) {
+        super(rule, score);
+        this.minIntervalMinutes = minIntervalMinutes;
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.INTERVAL;
+    }
+}
@@ -0,0 +1,27 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * METADATA_CHECK: flags evidence whose metadata does not have the expected value.
+ */
+@Getter
+public final class MetadataCheckRule extends CompiledRule {
+
+    private final String field;
+    private final boolean expectedValue;
+    private final boolean exifPresentField;
+
+    public MetadataCheckRule(FraudRule rule, int score, String field, boolean expectedValue, boolean exifPresentField) {
+        super(rule, score);
+        this.field = field;
+        this.expectedValue = expectedValue;
+        this.exifPresentField = exifPresentField;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.METADATA_CHECK;
+    }
+}
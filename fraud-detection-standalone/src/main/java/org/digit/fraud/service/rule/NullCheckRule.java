@@ -0,0 +1,25 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * NULL_CHECK: flags submissions where a required evidence field is missing.
+ */
+@Getter
+public final class NullCheckRule extends CompiledRule {
+
+    private final String field;
+    private final boolean gpsLatitudeField;
+
+    public NullCheckRule(FraudRule rule, int score, String field, boolean gpsLatitudeField) {
+        super(rule, score);
+        this.field = field;
+        this.gpsLatitudeField = gpsLatitudeField;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.NULL_CHECK;
+    }
+}
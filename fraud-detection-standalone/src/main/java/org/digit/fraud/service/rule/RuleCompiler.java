@@ -0,0 +1,234 @@
+package org.digit.fraud.service.rule;
+
+import org.digit.fraud.model.FraudRule;
+import org.digit.fraud.service.state.PerceptualHashIndex;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns the raw MDMS {@link FraudRule} definitions into {@link CompiledRule}s.
+ *
+ * All map lookups, casts and defaulting happen here, once per rule, so that the request
+ * path only ever reads primitive fields.
+ */
+public final class RuleCompiler {
+
+    private static final long HOUR_MS = 60L * 60 * 1000;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    private static final long MINUTE_MS = 60L * 1000;
+    private static final Pattern PURPOSE_FILTER = Pattern.compile("evidences\\[purpose=(\\w+)]");
+
+    private RuleCompiler() {
+    }
+
+    /**
+     * Compile a rule.
+     *
+     * @param rule The MDMS rule definition
+     * @param categoryWeight The weight configured for the rule's category
+     * @param conditions Compiles CUSTOM conditions, throwing IllegalArgumentException if invalid
+     * @param checks Parses external check expressions (SpEL over predictions), likewise
+     * @param submissionCapacity Submissions kept per applicant, see {@code fraud.state.submissions.capacity}
+     * @param deviceWindowHours The device user window, see {@code fraud.state.devices.retention-hours}
+     * @return The compiled rule
+     * @throws IllegalArgumentException if the condition or one of its expressions is malformed, a
+     *         submission count threshold could never be exceeded, or a device sharing window differs
+     *         from the one the state store counts over
+     */
+    public static CompiledRule compile(FraudRule rule, int categoryWeight,
+                                       Function<String, CompiledExpression> conditions,
+                                       Function<String, CompiledExpression> checks,
+                                       int submissionCapacity,
+                                       long deviceWindowHours) {
+        Map<String, Object> condition = rule.getCondition() != null ? rule.getCondition() : Map.of();
+        int score = calculateRuleScore(rule.getSeverity(), categoryWeight);
+
+        if ("EXTERNAL".equals(rule.getRuleType())) {
+            String validatorId = (String) condition.get("validatorId");
+            Number minConfidence = (Number) condition.get("minConfidence");
+            String checkExpression = (String) condition.get("checkExpression");
+            return new ExternalValidatorRule(rule, score, validatorId,
+                    ExternalValidatorRule.Validator.fromId(validatorId),
+                    checkExpression != null && !checkExpression.isBlank() ? checks.apply(checkExpression) : null,
+                    minConfidence != null ? minConfidence.doubleValue() : null);
+        }
+
+        String conditionType = (String) condition.get("type");
+        return switch (ConditionType.fromCode(conditionType)) {
+            case NULL_CHECK -> {
+                String field = stringValue(condition, "field", "");
+                yield new NullCheckRule(rule, score, field, field.contains("gpsLatitude"));
+            }
+            // Simulated boundary check - NCR region approximate bounds: 28.4-28.9 N, 76.8-77.5 E
+            case GEO_BOUNDARY -> new GeoBoundaryRule(rule, score,
+                    stringValue(condition, "boundaryType", "TENANT"),
+                    doubleValue(condition, "minLatitude", 28.4),
+                    doubleValue(condition, "maxLatitude", 28.9),
+                    doubleValue(condition, "minLongitude", 76.8),
+                    doubleValue(condition, "maxLongitude", 77.5));
+            case GEO_DISTANCE -> new GeoDistanceRule(rule, score,
+                    doubleValue(condition, "maxDistanceMeters", 500));
+            case VELOCITY -> {
+                long windowHours = longValue(condition, "windowHours", 1);
+                yield new VelocityRule(rule, score,
+                        countThreshold(condition, "VELOCITY", submissionCapacity),
+                        windowHours, windowHours * HOUR_MS);
+            }
+            case TIMESTAMP_AGE -> {
+                long maxAgeHours = longValue(condition, "maxAgeHours", 48);
+                yield new TimestampAgeRule(rule, score, maxAgeHours, maxAgeHours * HOUR_MS);
+            }
+            case TIMESTAMP_DIFF -> {
+                long maxDiffMinutes = longValue(condition, "maxDiffMinutes", 10);
+                yield new TimestampDiffRule(rule, score, maxDiffMinutes, maxDiffMinutes * MINUTE_MS);
+            }
+            case HASH_MATCH -> new HashMatchRule(rule, score, stringValue(condition, "field", ""));
+            case IMAGE_SIMILARITY -> {
+                double threshold = doubleValue(condition, "threshold", 0.90);
+                int maxDistance = (int) Math.floor((1.0 - threshold) * PerceptualHashIndex.HASH_BITS + 1e-9);
+                if (threshold > 1.0 || maxDistance > PerceptualHashIndex.MAX_DISTANCE) {
+                    throw new IllegalArgumentException("Unsupported image similarity threshold: " + threshold);
+                }
+                long lookbackDays = longValue(condition, "lookbackDays", 7);
+                yield new ImageSimilarityRule(rule, score, threshold, maxDistance,
+                        lookbackDays, lookbackDays * DAY_MS, evidencePurpose(stringValue(condition, "field", "")));
+            }
+            case INTERVAL -> {
+                long minIntervalMinutes = longValue(condition, "minIntervalMinutes", 5);
+                yield new IntervalRule(rule, score, minIntervalMinutes, minIntervalMinutes * MINUTE_MS);
+            }
+            case DEVICE_SHARING -> {
+                // One user count per device serves every rule, over the store's window
+                if (condition.containsKey("windowDays") &&
+                        longValue(condition, "windowDays", 0) * 24 != deviceWindowHours) {
+                    throw new IllegalArgumentException(String.format(
+                            "DEVICE_SHARING windowDays %d differs from fraud.state.devices.retention-hours %d",
+                            longValue(condition, "windowDays", 0), deviceWindowHours));
+                }
+                yield new DeviceSharingRule(rule, score, (int) longValue(condition, "minUniqueUsers", 2));
+            }
+            case GEO_CLUSTER -> {
+                long windowHours = longValue(condition, "windowHours", 24);
+                yield new GeoClusterRule(rule, score, doubleValue(condition, "radiusMeters", 50),
+                        windowHours, windowHours * HOUR_MS, (int) longValue(condition, "minCount", 5));
+            }
+            case METADATA_CHECK -> {
+                String field = stringValue(condition, "field", "");
+                yield new MetadataCheckRule(rule, score, field,
+                        Boolean.TRUE.equals(condition.get("expectedValue")),
+                        field.contains("exifPresent"));
+            }
+            case TIME_WINDOW -> new TimeWindowRule(rule, score,
+                    ZoneId.of(stringValue(condition, "timezone", "Asia/Kolkata")),
+                    compileWindows(condition.get("allowedWindows")));
+            case AGGREGATE_COUNT -> {
+                long periodDays = longValue(condition, "periodDays", 1);
+                yield new AggregateCountRule(rule, score,
+                        countThreshold(condition, "AGGREGATE_COUNT", submissionCapacity),
+                        periodDays, periodDays * DAY_MS);
+            }
+            case GPS_VELOCITY -> new GpsVelocityRule(rule, score,
+                    doubleValue(condition, "maxSpeedKmh", 120),
+                    longValue(condition, "minIntervalMinutes", 5));
+            case CUSTOM -> {
+                String expression = (String) condition.get("expression");
+                yield new CustomExpressionRule(rule, score, expression, conditions.apply(expression));
+            }
+            case EXTERNAL_VALIDATOR, UNKNOWN -> new UnknownConditionRule(rule, score, conditionType);
+        };
+    }
+
+    /**
+     * Score awarded when a rule triggers: the category weight scaled by severity.
+     */
+    public static int calculateRuleScore(String severity, int categoryWeight) {
+        int severityMultiplier = switch (severity != null ? severity : "") {
+            case "CRITICAL" -> 4;
+            case "HIGH" -> 3;
+            case "MEDIUM" -> 2;
+            case "LOW" -> 1;
+            default -> 1;
+        };
+        return (categoryWeight * severityMultiplier) / 4;
+    }
+
+    /**
+     * The submission count threshold of a VELOCITY or AGGREGATE_COUNT rule. The state store keeps
+     * only the latest {@code submissionCapacity} submissions per applicant, so with the current one
+     * a count never exceeds {@code submissionCapacity + 1} and a higher threshold could never trigger.
+     */
+    private static long countThreshold(Map<String, Object> condition, String conditionType, int submissionCapacity) {
+        long threshold = longValue(condition, "threshold", 5);
+        if (threshold > submissionCapacity) {
+            throw new IllegalArgumentException(String.format(
+                    "%s threshold %d exceeds fraud.state.submissions.capacity %d and could never trigger",
+                    conditionType, threshold, submissionCapacity));
+        }
+        return threshold;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<TimeWindowRule.AllowedWindow> compileWindows(Object value) {
+        if (value == null) {
+            return List.of();
+        }
+        List<TimeWindowRule.AllowedWindow> windows = new ArrayList<>();
+        for (Map<String, Object> window : (List<Map<String, Object>>) value) {
+            Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+            List<String> dayCodes = (List<String>) window.get("days");
+            if (dayCodes != null) {
+                for (String dayCode : dayCodes) {
+                    days.add(parseDay(dayCode));
+                }
+            }
+            windows.add(new TimeWindowRule.AllowedWindow(days,
+                    LocalTime.parse((String) window.get("start")),
+                    LocalTime.parse((String) window.get("end"))));
+        }
+        return List.copyOf(windows);
+    }
+
+    /**
+     * Extract the purpose from a field path such as {@code evidences[purpose=DOG_PHOTO].fileStoreId}.
+     *
+     * @return the purpose, or null if the path does not filter by purpose
+     */
+    private static String evidencePurpose(String field) {
+        Matcher matcher = PURPOSE_FILTER.matcher(field);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static DayOfWeek parseDay(String dayCode) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (day.name().startsWith(dayCode)) {
+                return day;
+            }
+        }
+        throw new IllegalArgumentException("Unknown day of week: " + dayCode);
+    }
+
+    private static String stringValue(Map<String, Object> condition, String key, String defaultValue) {
+        Object value = condition.get(key);
+        return value != null ? (String) value : defaultValue;
+    }
+
+    private static long longValue(Map<String, Object> condition, String key, long defaultValue) {
+        Number value = (Number) condition.get(key);
+        return value != null ? value.longValue() : defaultValue;
+    }
+
+    private static double doubleValue(Map<String, Object> condition, String key, double defaultValue) {
+        Number value = (Number) condition.get(key);
+        return value != null ? value.doubleValue() : defaultValue;
+    }
+}
@@ -0,0 +1,52 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * TIME_WINDOW: flags submissions made outside the allowed days and hours.
+ */
+@Getter
+public final class TimeWindowRule extends CompiledRule {
+
+    private final ZoneId zone;
+    private final List<AllowedWindow> allowedWindows;
+
+    public TimeWindowRule(FraudRule rule, int score, ZoneId zone, List<AllowedWindow> allowedWindows) {
+        super(rule, score);
+        this.zone = zone;
+        this.allowedWindows = allowedWindows;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.TIME_WINDOW;
+    }
+
+    /**
+     * A day-of-week set with an inclusive start and end time.
+     */
+    @Getter
+    public static final class AllowedWindow {
+
+        private final Set<DayOfWeek> days;
+        private final LocalTime start;
+        private final LocalTime end;
+
+        public AllowedWindow(Set<DayOfWeek> days, LocalTime start, LocalTime end) {
+            this.days = days;
+            this.start = start;
+            this.end = end;
+        }
+
+        public boolean contains(DayOfWeek day, LocalTime time) {
+            return days.contains(day) && !time.isBefore(start) && !time.isAfter(end);
+        }
+    }
+}
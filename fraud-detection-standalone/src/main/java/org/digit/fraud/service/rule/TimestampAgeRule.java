@@ -0,0 +1,25 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * TIMESTAMP_AGE: flags evidence captured longer ago than the allowed age.
+ */
+@Getter
+public final class TimestampAgeRule extends CompiledRule {
+
+    private final long maxAgeHours;
+    private final long maxAgeMs;
+
+    public TimestampAgeRule(FraudRule rule, int score, long maxAgeHours, long maxAgeMs) {
+        super(rule, score);
+        this.maxAgeHours = maxAgeHours;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.TIMESTAMP_AGE;
+    }
+}
@@ -0,0 +1,25 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * TIMESTAMP_DIFF: flags dog photos and selfies captured too far apart in time.
+ */
+@Getter
+public final class TimestampDiffRule extends CompiledRule {
+
+    private final long maxDiffMinutes;
+    private final long maxDiffMs;
+
+    public TimestampDiffRule(FraudRule rule, int score, long maxDiffMinutes, long maxDiffMs) {
+        super(rule, score);
+        this.maxDiffMinutes = maxDiffMinutes;
+        this.maxDiffMs = maxDiffMs;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.TIMESTAMP_DIFF;
+    }
+}
@@ -0,0 +1,23 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * Placeholder for rules whose condition type is not supported; never triggers.
+ */
+@Getter
+public final class UnknownConditionRule extends CompiledRule {
+
+    private final String declaredType;
+
+    public UnknownConditionRule(FraudRule rule, int score, String declaredType) {
+        super(rule, score);
+        this.declaredType = declaredType;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.UNKNOWN;
+    }
+}
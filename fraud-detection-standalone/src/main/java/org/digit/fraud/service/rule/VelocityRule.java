@@ -0,0 +1,27 @@
+package org.digit.fraud.service.rule;
+
+import lombok.Getter;
+import org.digit.fraud.model.FraudRule;
+
+/**
+ * VELOCITY: flags applicants submitting more than {@code threshold} reports within the window.
+ */
+@Getter
+public final class VelocityRule extends CompiledRule {
+
+    private final long threshold;
+    private final long windowHours;
+    private final long windowMs;
+
+    public VelocityRule(FraudRule rule, int score, long threshold, long windowHours, long windowMs) {
+        super(rule, score);
+        this.threshold = threshold;
+        this.windowHours = windowHours;
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    public ConditionType getConditionType() {
+        return ConditionType.VELOCITY;
+    }
+}
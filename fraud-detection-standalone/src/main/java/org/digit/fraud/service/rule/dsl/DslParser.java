@@ -0,0 +1,740 @@
+package org.digit.fraud.service.rule.dsl;
+
+import org.digit.fraud.service.rule.dsl.RuleDsl.Value;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.expression.EvaluationException;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.NumberUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Recursive-descent parser for {@link RuleDsl}, building the lambda tree as it parses.
+ *
+ * Precedence, lowest first: {@code ||}, {@code &&}, comparison (not chainable),
+ * {@code + -}, {@code * / %}, unary {@code ! -}, postfix {@code . ?. []}.
+ */
+final class DslParser {
+
+    /** Longest text {@code String * int} may produce, SpEL's limit. */
+    private static final int MAX_REPEATED_TEXT = 256;
+
+    private enum Kind {
+        NUMBER, STRING, NAME, VARIABLE, SYMBOL, END
+    }
+
+    private static final class Token {
+
+        private final Kind kind;
+        private final String text;
+        private final int position;
+
+        private Token(Kind kind, String text, int position) {
+            this.kind = kind;
+            this.text = text;
+            this.position = position;
+        }
+    }
+
+    private static final Map<String, String> WORD_OPERATORS = Map.of(
+            "and", "&&", "or", "||", "not", "!",
+            "eq", "==", "ne", "!=", "lt", "<", "le", "<=", "gt", ">", "ge", ">=");
+
+    private final String source;
+    private final List<Token> tokens;
+    private int next;
+
+    DslParser(String source) {
+        this.source = source;
+        this.tokens = tokenize(source);
+    }
+
+    Value parse() {
+        Value value = parseOr();
+        if (peek().kind != Kind.END) {
+            throw error("Unexpected '" + peek().text + "'", peek());
+        }
+        return value;
+    }
+
+    private Value parseOr() {
+        Value left = parseAnd();
+        while (accept("||")) {
+            Value a = left;
+            Value b = parseAnd();
+            left = (request, scope) -> condition(a.get(request, scope)) || condition(b.get(request, scope)) ?
+                    Boolean.TRUE : Boolean.FALSE;
+        }
+        return left;
+    }
+
+    private Value parseAnd() {
+        Value left = parseComparison();
+        while (accept("&&")) {
+            Value a = left;
+            Value b = parseComparison();
+            left = (request, scope) -> condition(a.get(request, scope)) && condition(b.get(request, scope)) ?
+                    Boolean.TRUE : Boolean.FALSE;
+        }
+        return left;
+    }
+
+    private Value parseComparison() {
+        Value a = parseAdditive();
+        Token operator = peek();
+        if (operator.kind != Kind.SYMBOL) {
+            return a;
+        }
+        switch (operator.text) {
+            case "==", "!=", "<", "<=", ">", ">=" -> next++;
+            default -> {
+                return a;
+            }
+        }
+        Value b = parseAdditive();
+        String relation = operator.text;
+        return switch (relation) {
+            case "==" -> (request, scope) -> equal(a.get(request, scope), b.get(request, scope));
+            case "!=" -> (request, scope) -> !equal(a.get(request, scope), b.get(request, scope));
+            default -> (request, scope) -> compare(relation, a.get(request, scope), b.get(request, scope));
+        };
+    }
+
+    private Value parseAdditive() {
+        Value left = parseMultiplicative();
+        while (peek().kind == Kind.SYMBOL && (peek().text.equals("+") || peek().text.equals("-"))) {
+            String operator = tokens.get(next++).text;
+            left = arithmetic(operator, left, parseMultiplicative());
+        }
+        return left;
+    }
+
+    private Value parseMultiplicative() {
+        Value left = parseUnary();
+        while (peek().kind == Kind.SYMBOL &&
+                (peek().text.equals("*") || peek().text.equals("/") || peek().text.equals("%"))) {
+            String operator = tokens.get(next++).text;
+            left = arithmetic(operator, left, parseUnary());
+        }
+        return left;
+    }
+
+    private Value parseUnary() {
+        if (accept("!")) {
+            Value operand = parseUnary();
+            return (request, scope) -> condition(operand.get(request, scope)) ? Boolean.FALSE : Boolean.TRUE;
+        }
+        if (accept("-")) {
+            Value operand = parseUnary();
+            return (request, scope) -> negate(operand.get(request, scope));
+        }
+        return parsePostfix(parsePrimary());
+    }
+
+    private Value parsePostfix(Value value) {
+        while (true) {
+            boolean nullSafe = peek().text.equals("?.");
+            if (accept(".") || accept("?.")) {
+                Value base = value;
+                Token name = expect(Kind.NAME);
+                if (accept("(")) {
+                    List<Value> args = parseArguments();
+                    value = wrap(() -> DslSchema.method(base, name.text, args, nullSafe), name);
+                } else {
+                    value = wrap(() -> DslSchema.property(base, name.text, nullSafe), name);
+                }
+            } else if (accept("[")) {
+                Value base = value;
+                Value key = parseOr();
+                expectSymbol("]");
+                value = (request, scope) -> index(base.get(request, scope), key.get(request, scope));
+            } else {
+                return value;
+            }
+        }
+    }
+
+    private Value parsePrimary() {
+        Token token = tokens.get(next++);
+        switch (token.kind) {
+            case NUMBER -> {
+                Number number = numberLiteral(token);
+                return (request, scope) -> number;
+            }
+            case STRING -> {
+                String text = token.text;
+                return (request, scope) -> text;
+            }
+            case VARIABLE -> {
+                if (token.text.equals("this") || token.text.equals("root")) {
+                    throw error("#" + token.text + " is not supported", token);
+                }
+                return DslSchema.variable(token.text);
+            }
+            case NAME -> {
+                switch (token.text) {
+                    case "true":
+                        return (request, scope) -> Boolean.TRUE;
+                    case "false":
+                        return (request, scope) -> Boolean.FALSE;
+                    case "null":
+                        return (request, scope) -> null;
+                    default:
+                        break;
+                }
+                if (accept("(")) {
+                    return aggregate(token, parseArguments());
+                }
+                return wrap(() -> DslSchema.property((request, scope) -> scope, token.text, false), token);
+            }
+            case SYMBOL -> {
+                if (token.text.equals("(")) {
+                    Value inner = parseOr();
+                    expectSymbol(")");
+                    return inner;
+                }
+                throw error("Unexpected '" + token.text + "'", token);
+            }
+            default -> throw error("Unexpected end of expression", token);
+        }
+    }
+
+    /**
+     * Arguments after an opening parenthesis, up to and including the closing one.
+     */
+    private List<Value> parseArguments() {
+        List<Value> args = new ArrayList<>();
+        if (accept(")")) {
+            return args;
+        }
+        do {
+            args.add(parseOr());
+        } while (accept(","));
+        expectSymbol(")");
+        return args;
+    }
+
+    private Value aggregate(Token function, List<Value> args) {
+        if (args.isEmpty() || args.size() > 2) {
+            throw error(function.text + "() takes a list and an optional argument", function);
+        }
+        Value source = args.get(0);
+        Value argument = args.size() == 2 ? args.get(1) : null;
+        switch (function.text) {
+            case "count" -> {
+                if (argument == null) {
+                    return (request, scope) -> source.get(request, scope) instanceof List<?> items ? items.size() : 0;
+                }
+                return (request, scope) -> {
+                    int count = 0;
+                    if (source.get(request, scope) instanceof List<?> items) {
+                        for (int i = 0; i < items.size(); i++) {
+                            if (condition(argument.get(request, items.get(i)))) {
+                                count++;
+                            }
+                        }
+                    }
+                    return count;
+                };
+            }
+            case "any", "all" -> {
+                if (argument == null) {
+                    throw error(function.text + "() needs a condition", function);
+                }
+                boolean all = function.text.equals("all");
+                return (request, scope) -> {
+                    if (source.get(request, scope) instanceof List<?> items) {
+                        for (int i = 0; i < items.size(); i++) {
+                            if (condition(argument.get(request, items.get(i))) != all) {
+                                return !all;
+                            }
+                        }
+                    }
+                    return all;
+                };
+            }
+            case "min", "max", "sum", "avg" -> {
+                if (argument == null) {
+                    throw error(function.text + "() needs a value", function);
+                }
+                String name = function.text;
+                return (request, scope) -> {
+                    if (!(source.get(request, scope) instanceof List<?> items)) {
+                        return null;
+                    }
+                    int count = 0;
+                    double result = 0;
+                    for (int i = 0; i < items.size(); i++) {
+                        if (argument.get(request, items.get(i)) instanceof Number number) {
+                            double value = number.doubleValue();
+                            result = count == 0 ? value : switch (name) {
+                                case "min" -> Math.min(result, value);
+                                case "max" -> Math.max(result, value);
+                                default -> result + value;
+                            };
+                            count++;
+                        }
+                    }
+                    if (count == 0) {
+                        return name.equals("sum") ? 0.0 : null;
+                    }
+                    return name.equals("avg") ? result / count : result;
+                };
+            }
+            default -> throw error("Unknown function '" + function.text + "'", function);
+        }
+    }
+
+    /**
+     * An int without a fraction or exponent, otherwise a double, as in SpEL.
+     */
+    private Number numberLiteral(Token token) {
+        if (token.text.indexOf('.') < 0 && token.text.indexOf('e') < 0 && token.text.indexOf('E') < 0) {
+            try {
+                return Integer.valueOf(token.text);
+            } catch (NumberFormatException e) {
+                throw error("The value '" + token.text + "' cannot be parsed as an int", token);
+            }
+        }
+        return Double.valueOf(token.text);
+    }
+
+    private static Value arithmetic(String operator, Value a, Value b) {
+        return (request, scope) -> arithmetic(operator, a.get(request, scope), b.get(request, scope));
+    }
+
+    /**
+     * Binary arithmetic with SpEL's semantics: numbers widen to the first of BigDecimal, Double,
+     * Float, BigInteger, Long and int that either operand is, so int / int divides as integers;
+     * {@code +} with a String operand concatenates, {@code String * int} repeats and
+     * {@code 'c' - int} shifts the character. Other operands fail the evaluation.
+     */
+    static Object arithmetic(String operator, Object x, Object y) {
+        if (x instanceof Number left && y instanceof Number right) {
+            if (left instanceof BigDecimal || right instanceof BigDecimal) {
+                BigDecimal l = NumberUtils.convertNumberToTargetClass(left, BigDecimal.class);
+                BigDecimal r = NumberUtils.convertNumberToTargetClass(right, BigDecimal.class);
+                return switch (operator) {
+                    case "+" -> l.add(r);
+                    case "-" -> l.subtract(r);
+                    case "*" -> l.multiply(r);
+                    case "/" -> l.divide(r, Math.max(l.scale(), r.scale()), RoundingMode.HALF_EVEN);
+                    default -> l.remainder(r);
+                };
+            }
+            if (left instanceof Double || right instanceof Double) {
+                double l = left.doubleValue();
+                double r = right.doubleValue();
+                return switch (operator) {
+                    case "+" -> l + r;
+                    case "-" -> l - r;
+                    case "*" -> l * r;
+                    case "/" -> l / r;
+                    default -> l % r;
+                };
+            }
+            if (left instanceof Float || right instanceof Float) {
+                float l = left.floatValue();
+                float r = right.floatValue();
+                return switch (operator) {
+                    case "+" -> l + r;
+                    case "-" -> l - r;
+                    case "*" -> l * r;
+                    case "/" -> l / r;
+                    default -> l % r;
+                };
+            }
+            if (left instanceof BigInteger || right instanceof BigInteger) {
+                BigInteger l = NumberUtils.convertNumberToTargetClass(left, BigInteger.class);
+                BigInteger r = NumberUtils.convertNumberToTargetClass(right, BigInteger.class);
+                return switch (operator) {
+                    case "+" -> l.add(r);
+                    case "-" -> l.subtract(r);
+                    case "*" -> l.multiply(r);
+                    case "/" -> l.divide(r);
+                    default -> l.remainder(r);
+                };
+            }
+            if (left instanceof Long || right instanceof Long) {
+                long l = left.longValue();
+                long r = right.longValue();
+                return switch (operator) {
+                    case "+" -> l + r;
+                    case "-" -> l - r;
+                    case "*" -> l * r;
+                    case "/" -> l / r;
+                    default -> l % r;
+                };
+            }
+            if (isInt(left) || isInt(right)) {
+                int l = left.intValue();
+                int r = right.intValue();
+                return switch (operator) {
+                    case "+" -> l + r;
+                    case "-" -> l - r;
+                    case "*" -> l * r;
+                    case "/" -> l / r;
+                    default -> l % r;
+                };
+            }
+            double l = left.doubleValue();
+            double r = right.doubleValue();
+            return switch (operator) {
+                case "+" -> l + r;
+                case "-" -> l - r;
+                case "*" -> l * r;
+                case "/" -> l / r;
+                default -> l % r;
+            };
+        }
+        if (operator.equals("+") && (x instanceof String || y instanceof String)) {
+            return asString(x) + asString(y);
+        }
+        if (operator.equals("*") && x instanceof String text && y instanceof Integer count) {
+            if (count < 0 || (long) text.length() * count > MAX_REPEATED_TEXT) {
+                throw new EvaluationException("Cannot repeat '" + text + "' " + count + " times");
+            }
+            return text.repeat(count);
+        }
+        if (operator.equals("-") && x instanceof String text && text.length() == 1 && y instanceof Integer shift) {
+            return String.valueOf((char) (text.charAt(0) - shift));
+        }
+        throw new EvaluationException("The operator '" + operator + "' is not supported between "
+                + typeName(x) + " and " + typeName(y));
+    }
+
+    /**
+     * Unary minus, widening as SpEL does.
+     */
+    static Object negate(Object value) {
+        if (value instanceof BigDecimal number) {
+            return number.negate();
+        }
+        if (value instanceof BigInteger number) {
+            return number.negate();
+        }
+        if (value instanceof Double number) {
+            return -number;
+        }
+        if (value instanceof Float number) {
+            return -number;
+        }
+        if (value instanceof Long number) {
+            return -number;
+        }
+        if (value instanceof Number number) {
+            if (isInt(number)) {
+                return -number.intValue();
+            }
+            return -number.doubleValue();
+        }
+        throw new EvaluationException("The operator '-' is not supported on " + typeName(value));
+    }
+
+    private static boolean isInt(Number number) {
+        return number instanceof Integer || number instanceof Short || number instanceof Byte;
+    }
+
+    private static String asString(Object value) {
+        return value instanceof String text ? text : value == null ? "null" :
+                DefaultConversionService.getSharedInstance().convert(value, String.class);
+    }
+
+    private static String typeName(Object value) {
+        return value == null ? "null" : value.getClass().getName();
+    }
+
+    /**
+     * {@code base[key]} as SpEL indexes: a map entry, null if absent; a list element or a
+     * character of a string, with the key converted to an int. Indexing null, out of range or
+     * into anything else fails the evaluation.
+     */
+    private static Object index(Object base, Object key) {
+        if (base instanceof Map<?, ?> map) {
+            return map.get(key);
+        }
+        if (base instanceof List<?> list) {
+            int i = convert(key, Integer.class);
+            if (i < 0 || i >= list.size()) {
+                throw new EvaluationException("Index " + i + " out of bounds for a list of " + list.size());
+            }
+            return list.get(i);
+        }
+        if (base instanceof String text) {
+            int i = convert(key, Integer.class);
+            if (i < 0 || i >= text.length()) {
+                throw new EvaluationException("Index " + i + " out of bounds for a string of " + text.length());
+            }
+            return String.valueOf(text.charAt(i));
+        }
+        throw new EvaluationException("Cannot index into " + typeName(base));
+    }
+
+    /**
+     * An operand of {@code && || !}, or a whole condition, converted to a boolean as SpEL converts
+     * it, so {@code 'true'} is true; null and values with no boolean form fail the evaluation.
+     */
+    static boolean condition(Object value) {
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+        return convert(value, Boolean.class);
+    }
+
+    /**
+     * {@code value} converted with the conversion service SpEL uses; null or unconvertible values
+     * fail the evaluation.
+     */
+    static <T> T convert(Object value, Class<T> type) {
+        T converted = null;
+        if (value != null) {
+            try {
+                converted = DefaultConversionService.getSharedInstance().convert(value, type);
+            } catch (ConversionException e) {
+                throw new EvaluationException("Cannot convert " + typeName(value) + " to " + type.getSimpleName());
+            }
+        }
+        if (converted == null) {
+            throw new EvaluationException("Cannot convert " + typeName(value) + " to " + type.getSimpleName());
+        }
+        return converted;
+    }
+
+    /**
+     * {@code ==} as SpEL defines it: numbers by value, strings by content, otherwise equal
+     * objects or comparable values of a common type that compare as 0.
+     */
+    static boolean equal(Object a, Object b) {
+        if (a instanceof Number x && b instanceof Number y) {
+            return compareNumbers("==", x, y);
+        }
+        if (a instanceof CharSequence && b instanceof CharSequence) {
+            return a.toString().equals(b.toString());
+        }
+        if (Objects.equals(a, b)) {
+            return true;
+        }
+        if (a instanceof Comparable && b instanceof Comparable) {
+            Class<?> ancestor = ClassUtils.determineCommonAncestor(a.getClass(), b.getClass());
+            return ancestor != null && Comparable.class.isAssignableFrom(ancestor) && compareValues(a, b) == 0;
+        }
+        return false;
+    }
+
+    /**
+     * {@code a relation b} for {@code < <= > >=} as SpEL orders values: numbers by value, null
+     * below everything else, other values by their natural order. Values that are not mutually
+     * comparable, e.g. a string and a number, fail the evaluation.
+     */
+    static boolean compare(String relation, Object a, Object b) {
+        if (a instanceof Number x && b instanceof Number y) {
+            return compareNumbers(relation, x, y);
+        }
+        if (a instanceof CharSequence && b instanceof CharSequence) {
+            return holds(relation, Integer.signum(a.toString().compareTo(b.toString())));
+        }
+        return holds(relation, compareValues(a, b));
+    }
+
+    /**
+     * Two numbers widened as {@link #arithmetic} widens them and compared with the primitive
+     * operator, so that, as in SpEL, {@code -0.0 < 0.0} is false.
+     */
+    private static boolean compareNumbers(String relation, Number x, Number y) {
+        if (x instanceof BigDecimal || y instanceof BigDecimal) {
+            return holds(relation, NumberUtils.convertNumberToTargetClass(x, BigDecimal.class)
+                    .compareTo(NumberUtils.convertNumberToTargetClass(y, BigDecimal.class)));
+        }
+        if (x instanceof Double || y instanceof Double) {
+            return holds(relation, x.doubleValue(), y.doubleValue());
+        }
+        if (x instanceof Float || y instanceof Float) {
+            return holds(relation, x.floatValue(), y.floatValue());
+        }
+        if (x instanceof BigInteger || y instanceof BigInteger) {
+            return holds(relation, NumberUtils.convertNumberToTargetClass(x, BigInteger.class)
+                    .compareTo(NumberUtils.convertNumberToTargetClass(y, BigInteger.class)));
+        }
+        if (x instanceof Long || y instanceof Long || isInt(x) || isInt(y)) {
+            return holds(relation, Long.compare(x.longValue(), y.longValue()));
+        }
+        return holds(relation, x.doubleValue(), y.doubleValue());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        if (a == null) {
+            return b == null ? 0 : -1;
+        }
+        if (b == null) {
+            return 1;
+        }
+        if (a instanceof Comparable comparable) {
+            try {
+                return Integer.signum(comparable.compareTo(b));
+            } catch (ClassCastException e) {
+                // fall through to the failure below
+            }
+        }
+        throw new EvaluationException("Cannot compare " + typeName(a) + " with " + typeName(b));
+    }
+
+    private static boolean holds(String relation, double l, double r) {
+        return switch (relation) {
+            case "==" -> l == r;
+            case "<" -> l < r;
+            case "<=" -> l <= r;
+            case ">" -> l > r;
+            default -> l >= r;
+        };
+    }
+
+    private static boolean holds(String relation, int sign) {
+        return switch (relation) {
+            case "==" -> sign == 0;
+            case "<" -> sign < 0;
+            case "<=" -> sign <= 0;
+            case ">" -> sign > 0;
+            default -> sign >= 0;
+        };
+    }
+
+    private Value wrap(Supplier<Value> build, Token token) {
+        try {
+            return build.get();
+        } catch (IllegalArgumentException e) {
+            throw error(e.getMessage(), token);
+        }
+    }
+
+    private Token peek() {
+        return tokens.get(next);
+    }
+
+    private boolean accept(String symbol) {
+        Token token = peek();
+        if (token.kind == Kind.SYMBOL && token.text.equals(symbol)) {
+            next++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expectSymbol(String symbol) {
+        if (!accept(symbol)) {
+            throw error("Expected '" + symbol + "'", peek());
+        }
+    }
+
+    private Token expect(Kind kind) {
+        Token token = peek();
+        if (token.kind != kind) {
+            throw error("Expected a name", token);
+        }
+        next++;
+        return token;
+    }
+
+    private IllegalArgumentException error(String message, Token token) {
+        return new IllegalArgumentException(message + " at position " + token.position + " in '" + source + "'");
+    }
+
+    private List<Token> tokenize(String text) {
+        List<Token> result = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < text.length() && Character.isDigit(text.charAt(i + 1)))) {
+                while (i < text.length() && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '.')) {
+                    i++;
+                }
+                if (i < text.length() && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+                    i++;
+                    if (i < text.length() && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                        i++;
+                    }
+                    while (i < text.length() && Character.isDigit(text.charAt(i))) {
+                        i++;
+                    }
+                }
+                if (i < text.length() && Character.isLetter(text.charAt(i))) {
+                    throw new IllegalArgumentException("Unsupported number literal at position " + start + " in '" + source + "'");
+                }
+                String number = text.substring(start, i);
+                try {
+                    Double.parseDouble(number);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Malformed number at position " + start + " in '" + source + "'");
+                }
+                result.add(new Token(Kind.NUMBER, number, start));
+            } else if (c == '\'' || c == '"') {
+                StringBuilder literal = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= text.length()) {
+                        throw new IllegalArgumentException("Unterminated string at position " + start + " in '" + source + "'");
+                    }
+                    char ch = text.charAt(i++);
+                    if (ch == c) {
+                        // A doubled quote stands for the quote itself, as in SpEL
+                        if (i < text.length() && text.charAt(i) == c) {
+                            literal.append(c);
+                            i++;
+                            continue;
+                        }
+                        break;
+                    }
+                    literal.append(ch);
+                }
+                result.add(new Token(Kind.STRING, literal.toString(), start));
+            } else if (c == '#' || Character.isJavaIdentifierStart(c)) {
+                if (c == '#') {
+                    i++;
+                }
+                int nameStart = i;
+                while (i < text.length() && Character.isJavaIdentifierPart(text.charAt(i))) {
+                    i++;
+                }
+                if (i == nameStart) {
+                    throw new IllegalArgumentException("Expected a variable name at position " + start + " in '" + source + "'");
+                }
+                String name = text.substring(nameStart, i);
+                String operator = c == '#' ? null : WORD_OPERATORS.get(name.toLowerCase());
+                if (operator != null) {
+                    result.add(new Token(Kind.SYMBOL, operator, start));
+                } else {
+                    result.add(new Token(c == '#' ? Kind.VARIABLE : Kind.NAME, name, start));
+                }
+            } else {
+                String two = i + 1 < text.length() ? text.substring(i, i + 2) : "";
+                switch (two) {
+                    case "==", "!=", "<=", ">=", "&&", "||", "?." -> {
+                        result.add(new Token(Kind.SYMBOL, two, start));
+                        i += 2;
+                    }
+                    default -> {
+                        if ("<>!+-*/%().,[]".indexOf(c) < 0) {
+                            throw new IllegalArgumentException("Unsupported character '" + c + "' at position "
+                                    + start + " in '" + source + "'");
+                        }
+                        result.add(new Token(Kind.SYMBOL, String.valueOf(c), start));
+                        i++;
+                    }
+                }
+            }
+        }
+        result.add(new Token(Kind.END, "end of expression", text.length()));
+        return result;
+    }
+}
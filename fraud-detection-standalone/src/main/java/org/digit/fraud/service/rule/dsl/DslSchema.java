@@ -0,0 +1,272 @@
+package org.digit.fraud.service.rule.dsl;
+
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.model.FraudEvaluationRequest.ApplicantInfo;
+import org.digit.fraud.model.FraudEvaluationRequest.EvidenceData;
+import org.digit.fraud.model.FraudEvaluationRequest.EvidenceMetadata;
+import org.digit.fraud.model.FraudEvaluationRequest.LocationData;
+import org.springframework.expression.EvaluationException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The fixed schema the rule DSL compiles against: the properties of the request model types,
+ * the variables of the SpEL rule context, and the few methods expressions may call. Everything
+ * is resolved to a direct getter call at compile time; nothing is looked up reflectively.
+ */
+final class DslSchema {
+
+    private static final Map<String, List<Accessor<?>>> PROPERTIES = new HashMap<>();
+    private static final Map<String, Function<FraudEvaluationRequest, Object>> VARIABLES = new HashMap<>();
+
+    static {
+        property(FraudEvaluationRequest.class, "applicationId", FraudEvaluationRequest::getApplicationId);
+        property(FraudEvaluationRequest.class, "tenantId", FraudEvaluationRequest::getTenantId);
+        property(FraudEvaluationRequest.class, "moduleCode", FraudEvaluationRequest::getModuleCode);
+        property(FraudEvaluationRequest.class, "applicantInfo", FraudEvaluationRequest::getApplicantInfo);
+        property(FraudEvaluationRequest.class, "locationData", FraudEvaluationRequest::getLocationData);
+        property(FraudEvaluationRequest.class, "evidences", FraudEvaluationRequest::getEvidences);
+        property(FraudEvaluationRequest.class, "additionalData", FraudEvaluationRequest::getAdditionalData);
+
+        property(ApplicantInfo.class, "applicantId", ApplicantInfo::getApplicantId);
+        property(ApplicantInfo.class, "userUuid", ApplicantInfo::getUserUuid);
+        property(ApplicantInfo.class, "mobileNumber", ApplicantInfo::getMobileNumber);
+        property(ApplicantInfo.class, "email", ApplicantInfo::getEmail);
+        property(ApplicantInfo.class, "name", ApplicantInfo::getName);
+        property(ApplicantInfo.class, "deviceId", ApplicantInfo::getDeviceId);
+        property(ApplicantInfo.class, "ipAddress", ApplicantInfo::getIpAddress);
+
+        property(LocationData.class, "latitude", LocationData::getLatitude);
+        property(LocationData.class, "longitude", LocationData::getLongitude);
+        property(LocationData.class, "accuracy", LocationData::getAccuracy);
+        property(LocationData.class, "address", LocationData::getAddress);
+        property(LocationData.class, "locality", LocationData::getLocality);
+        property(LocationData.class, "ward", LocationData::getWard);
+        property(LocationData.class, "district", LocationData::getDistrict);
+        property(LocationData.class, "timestamp", LocationData::getTimestamp);
+
+        property(EvidenceData.class, "fileStoreId", EvidenceData::getFileStoreId);
+        property(EvidenceData.class, "purpose", EvidenceData::getPurpose);
+        property(EvidenceData.class, "contentType", EvidenceData::getContentType);
+        property(EvidenceData.class, "contentHash", EvidenceData::getContentHash);
+        property(EvidenceData.class, "perceptualHash", EvidenceData::getPerceptualHash);
+        property(EvidenceData.class, "metadata", EvidenceData::getMetadata);
+
+        property(EvidenceMetadata.class, "gpsLatitude", EvidenceMetadata::getGpsLatitude);
+        property(EvidenceMetadata.class, "gpsLongitude", EvidenceMetadata::getGpsLongitude);
+        property(EvidenceMetadata.class, "timestamp", EvidenceMetadata::getTimestamp);
+        property(EvidenceMetadata.class, "deviceId", EvidenceMetadata::getDeviceId);
+        property(EvidenceMetadata.class, "deviceModel", EvidenceMetadata::getDeviceModel);
+        property(EvidenceMetadata.class, "osVersion", EvidenceMetadata::getOsVersion);
+        property(EvidenceMetadata.class, "exifPresent", EvidenceMetadata::getExifPresent);
+        property(EvidenceMetadata.class, "width", EvidenceMetadata::getWidth);
+        property(EvidenceMetadata.class, "height", EvidenceMetadata::getHeight);
+        property(EvidenceMetadata.class, "format", EvidenceMetadata::getFormat);
+
+        // The variables of RequestEvaluationContext, so CUSTOM expressions mean the same in both languages
+        VARIABLES.put("request", request -> request);
+        VARIABLES.put("applicantInfo", FraudEvaluationRequest::getApplicantInfo);
+        VARIABLES.put("applicantId", request -> request.getApplicantInfo() != null ?
+                request.getApplicantInfo().getApplicantId() : null);
+        VARIABLES.put("applicantName", request -> request.getApplicantInfo() != null ?
+                request.getApplicantInfo().getName() : null);
+        VARIABLES.put("deviceId", request -> request.getApplicantInfo() != null ?
+                request.getApplicantInfo().getDeviceId() : null);
+        VARIABLES.put("mobileNumber", request -> request.getApplicantInfo() != null ?
+                request.getApplicantInfo().getMobileNumber() : null);
+        VARIABLES.put("locationData", FraudEvaluationRequest::getLocationData);
+        VARIABLES.put("latitude", request -> request.getLocationData() != null ?
+                request.getLocationData().getLatitude() : null);
+        VARIABLES.put("longitude", request -> request.getLocationData() != null ?
+                request.getLocationData().getLongitude() : null);
+        VARIABLES.put("locality", request -> request.getLocationData() != null ?
+                request.getLocationData().getLocality() : null);
+        VARIABLES.put("evidences", FraudEvaluationRequest::getEvidences);
+        VARIABLES.put("evidenceCount", request -> request.getEvidences() != null ?
+                request.getEvidences().size() : null);
+        VARIABLES.put("metadata", request -> request.getEvidences() != null && !request.getEvidences().isEmpty() ?
+                request.getEvidences().get(0).getMetadata() : null);
+        VARIABLES.put("additionalData", FraudEvaluationRequest::getAdditionalData);
+    }
+
+    private DslSchema() {
+    }
+
+    private static <T> void property(Class<T> type, String name, Function<T, Object> getter) {
+        PROPERTIES.computeIfAbsent(name, n -> new ArrayList<>()).add(new Accessor<>(type, getter));
+    }
+
+    /**
+     * Read a property of whatever {@code base} yields. Through {@code ?.} null yields null; any
+     * other null, or a value whose type has no such property, fails the evaluation as in SpEL.
+     *
+     * @throws IllegalArgumentException if no schema type has the property
+     */
+    @SuppressWarnings("unchecked")
+    static RuleDsl.Value property(RuleDsl.Value base, String name, boolean nullSafe) {
+        List<Accessor<?>> accessors = PROPERTIES.get(name);
+        if (accessors == null) {
+            throw new IllegalArgumentException("Unknown property '" + name + "'");
+        }
+        String member = "property '" + name + "'";
+        if (accessors.size() == 1) {
+            Accessor<Object> accessor = (Accessor<Object>) accessors.get(0);
+            Class<?> type = accessor.type;
+            Function<Object, Object> getter = accessor.getter;
+            return (request, scope) -> {
+                Object target = base.get(request, scope);
+                return type.isInstance(target) ? getter.apply(target) : missing(target, member, nullSafe);
+            };
+        }
+        List<Accessor<Object>> candidates = new ArrayList<>(accessors.size());
+        for (Accessor<?> accessor : accessors) {
+            candidates.add((Accessor<Object>) accessor);
+        }
+        return (request, scope) -> {
+            Object target = base.get(request, scope);
+            for (int i = 0; i < candidates.size(); i++) {
+                Accessor<Object> candidate = candidates.get(i);
+                if (candidate.type.isInstance(target)) {
+                    return candidate.getter.apply(target);
+                }
+            }
+            return missing(target, member, nullSafe);
+        };
+    }
+
+    /**
+     * The result of using {@code member} on a value that does not have it: null for {@code ?.}
+     * on null, otherwise an evaluation failure.
+     */
+    private static Object missing(Object target, String member, boolean nullSafe) {
+        if (target == null) {
+            if (nullSafe) {
+                return null;
+            }
+            throw new EvaluationException("Cannot use " + member + " on null");
+        }
+        throw new EvaluationException("No " + member + " on " + target.getClass().getName());
+    }
+
+    /**
+     * A {@code #name} variable, resolved like RequestEvaluationContext resolves it for rules: an
+     * additionalData entry of that name first, then the built-in variable, otherwise null.
+     *
+     * @throws IllegalArgumentException for {@code #now}, which depends on the time the request is
+     *         evaluated at and so is left to the SpEL context
+     */
+    static RuleDsl.Value variable(String name) {
+        if ("now".equals(name)) {
+            throw new IllegalArgumentException("#now is only available in SpEL");
+        }
+        Function<FraudEvaluationRequest, Object> builtIn = VARIABLES.get(name);
+        return (request, scope) -> {
+            Map<String, Object> additionalData = request.getAdditionalData();
+            if (additionalData != null && additionalData.containsKey(name)) {
+                return additionalData.get(name);
+            }
+            return builtIn != null ? builtIn.apply(request) : null;
+        };
+    }
+
+    /**
+     * One of the methods expressions may call, on the types SpEL would find it on. Null and
+     * other types are handled as in {@link #property}.
+     *
+     * @throws IllegalArgumentException for any other method or arity
+     */
+    static RuleDsl.Value method(RuleDsl.Value base, String name, List<RuleDsl.Value> args, boolean nullSafe) {
+        String member = "method '" + name + "()'";
+        if (args.isEmpty()) {
+            switch (name) {
+                case "size":
+                    return (request, scope) -> {
+                        Object target = base.get(request, scope);
+                        if (target instanceof Collection<?> collection) {
+                            return collection.size();
+                        }
+                        return target instanceof Map<?, ?> map ? map.size() : missing(target, member, nullSafe);
+                    };
+                case "length":
+                    return (request, scope) -> {
+                        Object target = base.get(request, scope);
+                        return target instanceof String string ? string.length() : missing(target, member, nullSafe);
+                    };
+                case "isEmpty":
+                    return (request, scope) -> {
+                        Object target = base.get(request, scope);
+                        if (target instanceof Collection<?> collection) {
+                            return collection.isEmpty();
+                        }
+                        if (target instanceof Map<?, ?> map) {
+                            return map.isEmpty();
+                        }
+                        return target instanceof String string ? string.isEmpty() : missing(target, member, nullSafe);
+                    };
+                case "toLowerCase":
+                    return (request, scope) -> {
+                        Object target = base.get(request, scope);
+                        return target instanceof String string ? string.toLowerCase() : missing(target, member, nullSafe);
+                    };
+                case "toUpperCase":
+                    return (request, scope) -> {
+                        Object target = base.get(request, scope);
+                        return target instanceof String string ? string.toUpperCase() : missing(target, member, nullSafe);
+                    };
+                default:
+                    break;
+            }
+        } else if (args.size() == 1) {
+            RuleDsl.Value arg = args.get(0);
+            switch (name) {
+                case "contains":
+                    return (request, scope) -> {
+                        Object target = base.get(request, scope);
+                        if (target instanceof String string) {
+                            if (arg.get(request, scope) instanceof String part) {
+                                return string.contains(part);
+                            }
+                            throw new EvaluationException("contains() on a string needs a string argument");
+                        }
+                        if (target instanceof Collection<?> collection) {
+                            return collection.contains(arg.get(request, scope));
+                        }
+                        return missing(target, member, nullSafe);
+                    };
+                case "startsWith":
+                    return (request, scope) -> {
+                        Object target = base.get(request, scope);
+                        return target instanceof String string ?
+                                string.startsWith(DslParser.convert(arg.get(request, scope), String.class)) :
+                                missing(target, member, nullSafe);
+                    };
+                case "endsWith":
+                    return (request, scope) -> {
+                        Object target = base.get(request, scope);
+                        return target instanceof String string ?
+                                string.endsWith(DslParser.convert(arg.get(request, scope), String.class)) :
+                                missing(target, member, nullSafe);
+                    };
+                default:
+                    break;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported method '" + name + "' with " + args.size() + " arguments");
+    }
+
+    private static final class Accessor<T> {
+
+        private final Class<T> type;
+        private final Function<T, Object> getter;
+
+        private Accessor(Class<T> type, Function<T, Object> getter) {
+            this.type = type;
+            this.getter = getter;
+        }
+    }
+}
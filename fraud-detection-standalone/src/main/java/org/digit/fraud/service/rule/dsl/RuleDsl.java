@@ -0,0 +1,88 @@
+package org.digit.fraud.service.rule.dsl;
+
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.service.rule.CompiledExpression;
+import org.springframework.expression.EvaluationContext;
+
+import java.util.function.Supplier;
+
+/**
+ * A small expression language for CUSTOM rule conditions, compiled to a tree of lambdas over
+ * the request model.
+ *
+ * The syntax is the subset of SpEL the MDMS rules use, so most existing expressions compile
+ * unchanged:
+ * <ul>
+ *   <li>literals: int and decimal numbers, {@code 'strings'}, {@code true}, {@code false}, {@code null}</li>
+ *   <li>{@code #variables} of the SpEL rule context, e.g. {@code #latitude}, {@code #additionalData},
+ *       with additionalData entries usable directly as {@code #dogCount}; {@code #now} is left
+ *       to SpEL, whose context carries the evaluation time</li>
+ *   <li>property paths {@code a.b}, {@code a?.b} and index lookups {@code a['key']}, {@code a[0]};
+ *       a bare name is a property of the request, or of the current evidence in an aggregate</li>
+ *   <li>{@code == != < <= > >=} (and {@code eq ne lt le gt ge}), {@code + - * / %}
+ *       with SpEL's operand types, so {@code 10 / 3} is {@code 3} and {@code 'a' + 'b'} is
+ *       {@code 'ab'}, {@code && || !} (and {@code and or not}), parentheses</li>
+ *   <li>methods {@code size() length() isEmpty() contains(x) startsWith(x) endsWith(x)
+ *       toLowerCase() toUpperCase()}</li>
+ *   <li>aggregates over a list: {@code count(evidences)}, {@code count(evidences, cond)},
+ *       {@code any(evidences, cond)}, {@code all(evidences, cond)} and
+ *       {@code min|max|sum|avg(evidences, value)}, e.g.
+ *       {@code count(evidences, purpose == 'SELFIE' && metadata?.exifPresent == false) > 0}</li>
+ * </ul>
+ *
+ * Only schema properties and the methods above are reachable, so an expression cannot call
+ * arbitrary code. Nulls and types are handled as in SpEL: {@code ?.} on null yields null, but
+ * {@code .} on null, a property or method the value's type lacks, ordering values that are not
+ * mutually comparable and arithmetic SpEL does not support fail the evaluation; null orders
+ * below every other value, and conditions must be booleans or convert to one, e.g. from
+ * {@code 'true'}. Anything else, e.g. {@code T(...)}, is rejected at compile time so the caller
+ * can fall back to SpEL.
+ */
+public final class RuleDsl {
+
+    private RuleDsl() {
+    }
+
+    /**
+     * A compiled sub-expression. {@code scope} is the request at the top level and the current
+     * element inside an aggregate.
+     */
+    @FunctionalInterface
+    interface Value {
+        Object get(FraudEvaluationRequest request, Object scope);
+    }
+
+    /**
+     * Compile a condition.
+     *
+     * @throws IllegalArgumentException if the expression is blank or uses anything outside the language
+     */
+    public static CompiledExpression compile(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Empty expression");
+        }
+        return new DslExpression(expression, new DslParser(expression).parse());
+    }
+
+    private static final class DslExpression implements CompiledExpression {
+
+        private final String text;
+        private final Value root;
+
+        private DslExpression(String text, Value root) {
+            this.text = text;
+            this.root = root;
+        }
+
+        @Override
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public boolean matches(FraudEvaluationRequest request, Supplier<EvaluationContext> context) {
+            Object value = root.get(request, request);
+            return value != null && DslParser.condition(value);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.digit.fraud.service.state;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Distinct applicants per device in a fixed {@value #BYTES}-byte record, shared by the heap and
+ * memory-mapped state stores.
+ *
+ * Time is cut into windows as long as the device retention period and the record keeps the
+ * current and the previous window, so an applicant counts for at least one retention period and
+ * at most two. Each window holds up to {@value #EXACT_CAPACITY} applicant fingerprints exactly,
+ * then switches to a HyperLogLog of 128 one-byte registers in the same space (about 9% standard
+ * error), so thresholds up to {@value #EXACT_CAPACITY} users stay exact. Callers serialise
+ * access to a record.
+ *
+ * Window layout: {@code [epoch:8][count:8][fingerprints:8 * 16 | registers:128]}, with count
+ * {@value #SKETCH} once the window is a HyperLogLog.
+ */
+final class DeviceUserSketch {
+
+    static final int EXACT_CAPACITY = 16;
+
+    private static final int P = 7;
+    private static final int REGISTERS = 1 << P;
+    private static final int DATA = 16;
+    private static final int WINDOW_BYTES = DATA + REGISTERS;
+    static final int BYTES = 2 * WINDOW_BYTES;
+
+    private static final long SKETCH = -1;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private DeviceUserSketch() {
+    }
+
+    /**
+     * Add an applicant in window {@code epoch}, replacing the older window if neither is current.
+     *
+     * @param user a non-zero applicant fingerprint, see {@link MappedSlotTable#fingerprint(String)}
+     * @return the distinct applicants in the current and the previous window
+     */
+    static int add(ByteBuffer buf, int offset, long user, long epoch) {
+        int current = offset;
+        int other = offset + WINDOW_BYTES;
+        if (buf.getLong(current) != epoch) {
+            if (buf.getLong(other) == epoch) {
+                current = other;
+                other = offset;
+            } else {
+                if (buf.getLong(other) < buf.getLong(current)) {
+                    current = other;
+                    other = offset;
+                }
+                buf.putLong(current, epoch);
+                buf.putLong(current + 8, 0);
+            }
+        }
+        insert(buf, current, user);
+        return count(buf, current, buf.getLong(other) == epoch - 1 ? other : -1);
+    }
+
+    private static void insert(ByteBuffer buf, int window, long user) {
+        long count = buf.getLong(window + 8);
+        if (count == SKETCH) {
+            addToRegisters(buf, window + DATA, user);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            if (buf.getLong(window + DATA + i * 8) == user) {
+                return;
+            }
+        }
+        if (count < EXACT_CAPACITY) {
+            buf.putLong(window + DATA + (int) count * 8, user);
+            buf.putLong(window + 8, count + 1);
+            return;
+        }
+        // The registers overlay the fingerprints, so read them out before clearing
+        long[] users = new long[EXACT_CAPACITY];
+        for (int i = 0; i < EXACT_CAPACITY; i++) {
+            users[i] = buf.getLong(window + DATA + i * 8);
+        }
+        for (int i = 0; i < REGISTERS; i++) {
+            buf.put(window + DATA + i, (byte) 0);
+        }
+        buf.putLong(window + 8, SKETCH);
+        for (long known : users) {
+            addToRegisters(buf, window + DATA, known);
+        }
+        addToRegisters(buf, window + DATA, user);
+    }
+
+    private static int count(ByteBuffer buf, int current, int previous) {
+        long currentCount = buf.getLong(current + 8);
+        long previousCount = previous >= 0 ? buf.getLong(previous + 8) : 0;
+        if (currentCount != SKETCH && previousCount != SKETCH) {
+            int distinct = (int) currentCount;
+            for (int i = 0; i < previousCount; i++) {
+                if (!containsExact(buf, current, currentCount, buf.getLong(previous + DATA + i * 8))) {
+                    distinct++;
+                }
+            }
+            return distinct;
+        }
+        byte[] registers = new byte[REGISTERS];
+        fold(buf, current, registers);
+        if (previous >= 0) {
+            fold(buf, previous, registers);
+        }
+        return Math.max(estimate(registers), EXACT_CAPACITY + 1);
+    }
+
+    private static boolean containsExact(ByteBuffer buf, int window, long count, long user) {
+        for (int i = 0; i < count; i++) {
+            if (buf.getLong(window + DATA + i * 8) == user) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void fold(ByteBuffer buf, int window, byte[] registers) {
+        long count = buf.getLong(window + 8);
+        if (count == SKETCH) {
+            for (int i = 0; i < REGISTERS; i++) {
+                registers[i] = (byte) Math.max(registers[i], buf.get(window + DATA + i));
+            }
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            long user = buf.getLong(window + DATA + i * 8);
+            int index = (int) (user >>> (64 - P));
+            registers[index] = (byte) Math.max(registers[index], rank(user));
+        }
+    }
+
+    private static void addToRegisters(ByteBuffer buf, int registers, long user) {
+        int index = registers + (int) (user >>> (64 - P));
+        int rank = rank(user);
+        if (rank > buf.get(index)) {
+            buf.put(index, (byte) rank);
+        }
+    }
+
+    /**
+     * Position of the first set bit after the index bits, 1-based.
+     */
+    private static int rank(long user) {
+        return Math.min(Long.numberOfLeadingZeros(user << P), 64 - P) + 1;
+    }
+
+    private static int estimate(byte[] registers) {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return (int) Math.round(estimate);
+    }
+}
@@ -0,0 +1,70 @@
+package org.digit.fraud.service.state;
+
+import java.util.Map;
+
+/**
+ * State shared across evaluations by the velocity, duplicate and device-sharing rules.
+ *
+ * Implementations are selected with {@code fraud.state.backend}: {@code memory} (default) keeps
+ * everything on the heap, {@code mmap} keeps it in memory-mapped files that survive restarts.
+ * A shared store (e.g. Redis) can be added later behind the same interface.
+ *
+ * Only the state behind this interface is persisted. The perceptual hashes of IMAGE_SIMILARITY
+ * ({@link PerceptualHashIndex}), the coordinates of GEO_CLUSTER ({@link GeoGridIndex}) and the
+ * last positions of GPS_VELOCITY ({@link LastPositionStore}) stay on the heap with either
+ * backend, so those rules start from empty state after a restart.
+ */
+public interface FraudStateStore {
+
+    /** Returned by {@link #lastSubmission(String)} when the applicant has no history. */
+    long NONE = Long.MIN_VALUE;
+
+    /**
+     * Namespaces for {@link #putHashIfAbsent(HashType, String, String, long)}.
+     */
+    enum HashType {
+        CONTENT
+    }
+
+    void recordSubmission(String applicantId, long timestamp);
+
+    /**
+     * Number of submissions recorded strictly after {@code since}. Implementations may
+     * saturate the count at a fixed per-applicant capacity.
+     */
+    int countSubmissionsSince(String applicantId, long since);
+
+    /**
+     * Timestamp of the applicant's latest submission, or {@link #NONE}.
+     */
+    long lastSubmission(String applicantId);
+
+    /**
+     * Remember {@code hash} as belonging to {@code applicationId} unless it is already known.
+     * {@code now} starts the hash's retention period.
+     *
+     * @return the other application that first recorded the hash, for display; null if the hash
+     *         was new or was first recorded by {@code applicationId} itself
+     */
+    String putHashIfAbsent(HashType type, String hash, String applicationId, long now);
+
+    /**
+     * Register an applicant as a user of a device at {@code now}.
+     *
+     * @return the number of distinct applicants seen on the device within the last one to two
+     *         device retention periods; exact up to 16, estimated beyond
+     */
+    int addDeviceUser(String deviceId, String applicantId, long now);
+
+    /**
+     * Drop state that has outlived its retention period.
+     *
+     * @return the number of entries removed
+     */
+    int evictExpired(long now);
+
+    /**
+     * Number of live entries per store, for monitoring.
+     */
+    Map<String, Long> sizes();
+}
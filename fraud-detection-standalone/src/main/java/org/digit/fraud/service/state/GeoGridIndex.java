@@ -0,0 +1,184 @@
+package org.digit.fraud.service.state;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Grid index of recent submission coordinates, used by the GEO_CLUSTER rule.
+ *
+ * The map is cut into rows {@code fraud.state.geo.cell-meters} tall; each row is cut into
+ * columns of the same width in metres at that row's latitude. A point is filed under one
+ * cell, and a radius query only visits the cells overlapping the radius' bounding box, so
+ * with the radius no larger than a cell a query touches at most nine cells whatever the
+ * number of live points. Each cell keeps its points in arrival order and drops those older
+ * than the retention period from the head; a cell holds at most {@code max-points-per-cell}
+ * points, so counts saturate at that value.
+ */
+@Slf4j
+@Component
+public class GeoGridIndex {
+
+    private static final double EARTH_RADIUS_METERS = 6371000;
+    private static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180;
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    private final double cellDegrees;
+    private final int maxPointsPerCell;
+    private final long retentionMs;
+    private final ConcurrentHashMap<Long, Cell> cells = new ConcurrentHashMap<>();
+
+    public GeoGridIndex(@Value("${fraud.state.geo.cell-meters:100}") double cellMeters,
+                        @Value("${fraud.state.geo.max-points-per-cell:1024}") int maxPointsPerCell,
+                        @Value("${fraud.state.geo.retention-hours:48}") long retentionHours) {
+        this.cellDegrees = cellMeters / METERS_PER_DEGREE;
+        this.maxPointsPerCell = maxPointsPerCell;
+        this.retentionMs = retentionHours * HOUR_MS;
+        log.info("Geo grid index using {} m cells, {} h retention", cellMeters, retentionHours);
+    }
+
+    public void record(double latitude, double longitude, long timestamp) {
+        int row = row(latitude);
+        long key = key(row, column(longitude, row));
+        cells.compute(key, (k, cell) -> {
+            Cell target = cell != null ? cell : new Cell();
+            synchronized (target) {
+                target.add(latitude, longitude, timestamp, timestamp - retentionMs, maxPointsPerCell);
+            }
+            return target;
+        });
+    }
+
+    /**
+     * Number of points recorded strictly after {@code since} within {@code radiusMeters} of the
+     * given position.
+     */
+    public int countWithin(double latitude, double longitude, double radiusMeters, long since) {
+        double latSpan = radiusMeters / METERS_PER_DEGREE;
+        int minRow = row(latitude - latSpan);
+        int maxRow = row(latitude + latSpan);
+        int count = 0;
+        for (int row = minRow; row <= maxRow; row++) {
+            double lonSpan = latSpan / Math.max(Math.cos(Math.toRadians(rowLatitude(row))), 1e-6);
+            int minColumn = column(longitude - lonSpan, row);
+            int maxColumn = column(longitude + lonSpan, row);
+            for (int column = minColumn; column <= maxColumn; column++) {
+                Cell cell = cells.get(key(row, column));
+                if (cell != null) {
+                    synchronized (cell) {
+                        count += cell.countWithin(latitude, longitude, radiusMeters, since);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Drop points older than the retention period, and cells left empty.
+     *
+     * @return the number of cells removed
+     */
+    public int evictExpired(long now) {
+        long cutoff = now - retentionMs;
+        int[] removed = new int[1];
+        for (Long key : cells.keySet()) {
+            cells.computeIfPresent(key, (k, cell) -> {
+                synchronized (cell) {
+                    cell.expire(cutoff);
+                    if (cell.isEmpty()) {
+                        removed[0]++;
+                        return null;
+                    }
+                    return cell;
+                }
+            });
+        }
+        return removed[0];
+    }
+
+    public int size() {
+        return cells.size();
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    private double rowLatitude(int row) {
+        return Math.min(90, Math.max(-90, (row + 0.5) * cellDegrees - 90));
+    }
+
+    private int column(double longitude, int row) {
+        double width = cellDegrees / Math.max(Math.cos(Math.toRadians(rowLatitude(row))), 1e-6);
+        return (int) Math.floor((longitude + 180) / width);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_METERS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private static final class Cell {
+
+        private final ArrayDeque<Point> points = new ArrayDeque<>(4);
+
+        void add(double latitude, double longitude, long timestamp, long cutoff, int maxPoints) {
+            expire(cutoff);
+            if (points.size() >= maxPoints) {
+                points.pollFirst();
+            }
+            points.addLast(new Point(latitude, longitude, timestamp));
+        }
+
+        void expire(long cutoff) {
+            while (!points.isEmpty() && points.peekFirst().timestamp < cutoff) {
+                points.pollFirst();
+            }
+        }
+
+        int countWithin(double latitude, double longitude, double radiusMeters, long since) {
+            int count = 0;
+            // Newest first, so the scan stops at the first point outside the window
+            Iterator<Point> it = points.descendingIterator();
+            while (it.hasNext()) {
+                Point point = it.next();
+                if (point.timestamp <= since) {
+                    break;
+                }
+                if (distanceMeters(latitude, longitude, point.latitude, point.longitude) <= radiusMeters) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        boolean isEmpty() {
+            return points.isEmpty();
+        }
+    }
+
+    private static final class Point {
+        private final double latitude;
+        private final double longitude;
+        private final long timestamp;
+
+        private Point(double latitude, double longitude, long timestamp) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timestamp = timestamp;
+        }
+    }
+}
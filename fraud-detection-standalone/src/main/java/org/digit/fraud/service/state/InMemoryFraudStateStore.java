@@ -0,0 +1,117 @@
+package org.digit.fraud.service.state;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Heap-backed {@link FraudStateStore}. State is lost on restart and is not shared between
+ * replicas; use the {@code mmap} backend when either matters.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "fraud.state.backend", havingValue = "memory", matchIfMissing = true)
+public class InMemoryFraudStateStore implements FraudStateStore {
+
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    private final SubmissionWindowStore submissions;
+    private final Map<HashType, ConcurrentHashMap<String, HashEntry>> hashes = new EnumMap<>(HashType.class);
+    private final ConcurrentHashMap<String, DeviceEntry> devices = new ConcurrentHashMap<>();
+    private final long hashRetentionMs;
+    private final long deviceRetentionMs;
+
+    public InMemoryFraudStateStore(@Value("${fraud.state.submissions.capacity:32}") int submissionCapacity,
+                                   @Value("${fraud.state.submissions.retention-hours:744}") long submissionRetentionHours,
+                                   @Value("${fraud.state.hashes.retention-hours:720}") long hashRetentionHours,
+                                   @Value("${fraud.state.devices.retention-hours:168}") long deviceRetentionHours) {
+        this.submissions = new SubmissionWindowStore(submissionCapacity, submissionRetentionHours * HOUR_MS);
+        this.hashRetentionMs = hashRetentionHours * HOUR_MS;
+        this.deviceRetentionMs = deviceRetentionHours * HOUR_MS;
+        for (HashType type : HashType.values()) {
+            hashes.put(type, new ConcurrentHashMap<>());
+        }
+        log.info("Using in-memory fraud state store");
+    }
+
+    @Override
+    public void recordSubmission(String applicantId, long timestamp) {
+        submissions.record(applicantId, timestamp);
+    }
+
+    @Override
+    public int countSubmissionsSince(String applicantId, long since) {
+        return submissions.countSince(applicantId, since);
+    }
+
+    @Override
+    public long lastSubmission(String applicantId) {
+        return submissions.lastTimestamp(applicantId);
+    }
+
+    @Override
+    public String putHashIfAbsent(HashType type, String hash, String applicationId, long now) {
+        HashEntry entry = new HashEntry(applicationId, now);
+        HashEntry existing = hashes.get(type).putIfAbsent(hash, entry);
+        return existing != null && !Objects.equals(existing.applicationId, applicationId) ?
+                existing.applicationId : null;
+    }
+
+    @Override
+    public int addDeviceUser(String deviceId, String applicantId, long now) {
+        long user = MappedSlotTable.fingerprint(applicantId);
+        int[] count = new int[1];
+        // Inside compute, so evictExpired cannot drop the entry between the update and lastSeen
+        devices.compute(deviceId, (key, entry) -> {
+            DeviceEntry target = entry != null ? entry : new DeviceEntry();
+            count[0] = DeviceUserSketch.add(target.users, 0, user, now / deviceRetentionMs);
+            target.lastSeen = now;
+            return target;
+        });
+        return count[0];
+    }
+
+    @Override
+    public int evictExpired(long now) {
+        int removed = submissions.evictExpired(now);
+        for (ConcurrentHashMap<String, HashEntry> store : hashes.values()) {
+            int before = store.size();
+            store.values().removeIf(entry -> entry.recordedAt < now - hashRetentionMs);
+            removed += Math.max(0, before - store.size());
+        }
+        int before = devices.size();
+        devices.values().removeIf(entry -> entry.lastSeen < now - deviceRetentionMs);
+        removed += Math.max(0, before - devices.size());
+        return removed;
+    }
+
+    @Override
+    public Map<String, Long> sizes() {
+        return Map.of(
+                "submissions", (long) submissions.size(),
+                "contentHashes", (long) hashes.get(HashType.CONTENT).size(),
+                "devices", (long) devices.size());
+    }
+
+    private static final class HashEntry {
+        private final String applicationId;
+        private final long recordedAt;
+
+        private HashEntry(String applicationId, long recordedAt) {
+            this.applicationId = applicationId;
+            this.recordedAt = recordedAt;
+        }
+    }
+
+    private static final class DeviceEntry {
+        private final ByteBuffer users = ByteBuffer.allocate(DeviceUserSketch.BYTES);
+        private volatile long lastSeen;
+    }
+}
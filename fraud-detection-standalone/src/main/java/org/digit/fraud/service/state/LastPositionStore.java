@@ -0,0 +1,189 @@
+package org.digit.fraud.service.state;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Last known position and time per applicant and per device, used by the GPS_VELOCITY rule.
+ *
+ * A fixed-size open-addressing table over primitive arrays: keys are 64-bit hashes of the ID,
+ * and each hash maps to one bucket of {@value #WAYS} slots. A new key takes a free or expired
+ * slot in its bucket, or else replaces the bucket's least recently updated entry, so memory is
+ * fixed at roughly 32 bytes per slot ({@code fraud.state.positions.capacity} slots) whatever
+ * the number of IDs seen, and every operation touches one bucket. Entries older than the
+ * retention period are ignored by lookups and cleared by {@link #evictExpired(long)}. Heap-only
+ * regardless of {@code fraud.state.backend}.
+ */
+@Slf4j
+@Component
+public class LastPositionStore {
+
+    /**
+     * Key namespaces, so an applicant and a device with the same ID do not collide.
+     */
+    public enum KeyType {
+        APPLICANT,
+        DEVICE
+    }
+
+    private static final int WAYS = 8;
+    private static final int LOCK_STRIPES = 1024;
+    private static final long EMPTY = 0;
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    private final int bucketMask;
+    private final long retentionMs;
+    private final long[] keys;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] timestamps;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+
+    public LastPositionStore(@Value("${fraud.state.positions.capacity:1048576}") int capacity,
+                             @Value("${fraud.state.positions.retention-hours:24}") long retentionHours) {
+        int buckets = Integer.highestOneBit(Math.max(capacity / WAYS, 1) * 2 - 1);
+        int slots = buckets * WAYS;
+        this.bucketMask = buckets - 1;
+        this.retentionMs = retentionHours * HOUR_MS;
+        this.keys = new long[slots];
+        this.latitudes = new double[slots];
+        this.longitudes = new double[slots];
+        this.timestamps = new long[slots];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        log.info("Last position store with {} slots, {} h retention", slots, retentionHours);
+    }
+
+    /**
+     * The last position recorded for the ID within the retention period before {@code now}, or null.
+     */
+    public Position get(KeyType type, String id, long now) {
+        long key = hash(type, id);
+        int bucket = bucket(key);
+        int start = bucket * WAYS;
+        long cutoff = now - retentionMs;
+        synchronized (lock(bucket)) {
+            for (int slot = start; slot < start + WAYS; slot++) {
+                if (keys[slot] == key) {
+                    return timestamps[slot] >= cutoff ?
+                            new Position(latitudes[slot], longitudes[slot], timestamps[slot]) : null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Record a position, unless a later one is already known for the ID.
+     */
+    public void put(KeyType type, String id, double latitude, double longitude, long timestamp) {
+        long key = hash(type, id);
+        int bucket = bucket(key);
+        int start = bucket * WAYS;
+        long cutoff = timestamp - retentionMs;
+        synchronized (lock(bucket)) {
+            int target = -1;
+            for (int slot = start; slot < start + WAYS; slot++) {
+                if (keys[slot] == key) {
+                    if (timestamps[slot] > timestamp) {
+                        return;
+                    }
+                    target = slot;
+                    break;
+                }
+                if (keys[slot] == EMPTY) {
+                    if (target < 0 || keys[target] != EMPTY) {
+                        target = slot;
+                    }
+                } else if (target < 0 || (keys[target] != EMPTY && timestamps[slot] < timestamps[target])) {
+                    target = slot;
+                }
+            }
+            if (keys[target] == EMPTY) {
+                size.incrementAndGet();
+            } else if (keys[target] != key && timestamps[target] >= cutoff) {
+                log.trace("Last position store bucket {} full, replacing a live entry", bucket);
+            }
+            keys[target] = key;
+            latitudes[target] = latitude;
+            longitudes[target] = longitude;
+            timestamps[target] = timestamp;
+        }
+    }
+
+    /**
+     * Clear entries older than the retention period.
+     *
+     * @return the number of entries removed
+     */
+    public int evictExpired(long now) {
+        long cutoff = now - retentionMs;
+        int removed = 0;
+        for (int bucket = 0; bucket <= bucketMask; bucket++) {
+            int start = bucket * WAYS;
+            synchronized (lock(bucket)) {
+                for (int slot = start; slot < start + WAYS; slot++) {
+                    if (keys[slot] != EMPTY && timestamps[slot] < cutoff) {
+                        keys[slot] = EMPTY;
+                        removed++;
+                    }
+                }
+            }
+        }
+        size.addAndGet(-removed);
+        return removed;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private int bucket(long key) {
+        return (int) key & bucketMask;
+    }
+
+    private Object lock(int bucket) {
+        return locks[bucket & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * 64-bit FNV-1a over the namespace and the ID's chars, finished with the MurmurHash3 mixer.
+     * Never returns {@link #EMPTY}.
+     */
+    static long hash(KeyType type, String id) {
+        long h = 0xcbf29ce484222325L;
+        h = (h ^ (type.ordinal() + 1)) * 0x100000001b3L;
+        for (int i = 0; i < id.length(); i++) {
+            h = (h ^ id.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h != EMPTY ? h : 1;
+    }
+
+    /**
+     * A recorded position.
+     */
+    @Getter
+    public static final class Position {
+
+        private final double latitude;
+        private final double longitude;
+        private final long timestamp;
+
+        public Position(double latitude, double longitude, long timestamp) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package org.digit.fraud.service.state;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link FraudStateStore} backed by memory-mapped files under {@code fraud.state.mmap.directory}.
+ *
+ * Each store is a {@link MappedSlotTable} with fixed-size slots, so state survives restarts,
+ * the files never grow past their configured capacity and every lookup touches at most one
+ * small group of slots. Keys are 64-bit fingerprints of the original strings; a fingerprint
+ * collision can make two keys share a slot, which is an accepted trade-off for a fraud signal.
+ *
+ * Per-key limits: submission history keeps the latest {@code fraud.state.submissions.capacity}
+ * timestamps, the application owning a content hash is identified by a fingerprint of its ID,
+ * with the ID itself kept for display up to {@value #MAX_APPLICATION_ID_BYTES} bytes, and
+ * device users are counted with a {@link DeviceUserSketch}. The heap-only indexes listed in
+ * {@link FraudStateStore} are not persisted by this backend.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "fraud.state.backend", havingValue = "mmap")
+public class MappedFraudStateStore implements FraudStateStore {
+
+    static final int MAX_APPLICATION_ID_BYTES = 54;
+    /** Length flag of an application ID that was cut to {@link #MAX_APPLICATION_ID_BYTES}. */
+    private static final int TRUNCATED = 0x8000;
+
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    private final int submissionCapacity;
+    private final long submissionRetentionMs;
+    private final long hashRetentionMs;
+    private final long deviceRetentionMs;
+
+    private final MappedSlotTable submissions;
+    private final Map<HashType, MappedSlotTable> hashes = new EnumMap<>(HashType.class);
+    private final MappedSlotTable devices;
+
+    public MappedFraudStateStore(@Value("${fraud.state.mmap.directory:./fraud-state}") String directory,
+                                 @Value("${fraud.state.mmap.capacity:1048576}") long capacity,
+                                 @Value("${fraud.state.submissions.capacity:32}") int submissionCapacity,
+                                 @Value("${fraud.state.submissions.retention-hours:744}") long submissionRetentionHours,
+                                 @Value("${fraud.state.hashes.retention-hours:720}") long hashRetentionHours,
+                                 @Value("${fraud.state.devices.retention-hours:168}") long deviceRetentionHours) {
+        this.submissionCapacity = submissionCapacity;
+        this.submissionRetentionMs = submissionRetentionHours * HOUR_MS;
+        this.hashRetentionMs = hashRetentionHours * HOUR_MS;
+        this.deviceRetentionMs = deviceRetentionHours * HOUR_MS;
+
+        try {
+            Path dir = Files.createDirectories(Path.of(directory));
+            // [head:4][size:4][timestamps:8 * capacity]
+            this.submissions = new MappedSlotTable("submissions", dir.resolve("submissions.dat"),
+                    capacity, 8 + 8 * submissionCapacity);
+            // [applicationIdFingerprint:8][length:2][applicationId:54]
+            hashes.put(HashType.CONTENT, new MappedSlotTable("contentHashes", dir.resolve("content-hashes.dat"),
+                    capacity, 10 + MAX_APPLICATION_ID_BYTES));
+            // [DeviceUserSketch]
+            this.devices = new MappedSlotTable("devices", dir.resolve("devices.dat"),
+                    capacity, DeviceUserSketch.BYTES);
+            log.info("Using memory-mapped fraud state store in {} (capacity {} keys per store)",
+                    dir.toAbsolutePath(), submissions.capacity());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open fraud state files in " + directory, e);
+        }
+    }
+
+    @Override
+    public void recordSubmission(String applicantId, long timestamp) {
+        submissions.upsert(MappedSlotTable.fingerprint(applicantId), timestamp,
+                timestamp - submissionRetentionMs, (buf, offset, created) -> {
+                    int head = buf.getInt(offset);
+                    int size = buf.getInt(offset + 4);
+                    buf.putLong(offset + 8 + head * 8, timestamp);
+                    buf.putInt(offset, (head + 1) % submissionCapacity);
+                    if (size < submissionCapacity) {
+                        buf.putInt(offset + 4, size + 1);
+                    }
+                    return null;
+                });
+    }
+
+    @Override
+    public int countSubmissionsSince(String applicantId, long since) {
+        long minTouched = System.currentTimeMillis() - submissionRetentionMs;
+        return (int) submissions.read(MappedSlotTable.fingerprint(applicantId), minTouched, (buf, offset) -> {
+            int size = buf.getInt(offset + 4);
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (buf.getLong(offset + 8 + i * 8) > since) {
+                    count++;
+                }
+            }
+            return count;
+        }, 0);
+    }
+
+    @Override
+    public long lastSubmission(String applicantId) {
+        long minTouched = System.currentTimeMillis() - submissionRetentionMs;
+        return submissions.read(MappedSlotTable.fingerprint(applicantId), minTouched, (buf, offset) -> {
+            int head = buf.getInt(offset);
+            int size = buf.getInt(offset + 4);
+            if (size == 0) {
+                return NONE;
+            }
+            int last = (head - 1 + submissionCapacity) % submissionCapacity;
+            return buf.getLong(offset + 8 + last * 8);
+        }, NONE);
+    }
+
+    @Override
+    public String putHashIfAbsent(HashType type, String hash, String applicationId, long now) {
+        String id = applicationId != null ? applicationId : "";
+        long owner = MappedSlotTable.fingerprint(id);
+        return hashes.get(type).upsert(MappedSlotTable.fingerprint(hash), now, now - hashRetentionMs,
+                (buf, offset, created) -> {
+                    if (created) {
+                        writeApplicationId(buf, offset, owner, id);
+                        return null;
+                    }
+                    // Compared by fingerprint, as the stored ID may be cut short
+                    return buf.getLong(offset) != owner ? readApplicationId(buf, offset) : null;
+                });
+    }
+
+    @Override
+    public int addDeviceUser(String deviceId, String applicantId, long now) {
+        long user = MappedSlotTable.fingerprint(applicantId);
+        return devices.upsert(MappedSlotTable.fingerprint(deviceId), now, now - deviceRetentionMs,
+                (buf, offset, created) -> DeviceUserSketch.add(buf, offset, user, now / deviceRetentionMs));
+    }
+
+    @Override
+    public int evictExpired(long now) {
+        int removed = submissions.evictOlderThan(now - submissionRetentionMs);
+        for (MappedSlotTable table : hashes.values()) {
+            removed += table.evictOlderThan(now - hashRetentionMs);
+        }
+        removed += devices.evictOlderThan(now - deviceRetentionMs);
+        return removed;
+    }
+
+    @Override
+    public Map<String, Long> sizes() {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        sizes.put(submissions.name(), submissions.size());
+        for (MappedSlotTable table : hashes.values()) {
+            sizes.put(table.name(), table.size());
+        }
+        sizes.put(devices.name(), devices.size());
+        return sizes;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        submissions.close();
+        for (MappedSlotTable table : hashes.values()) {
+            table.close();
+        }
+        devices.close();
+    }
+
+    private static void writeApplicationId(ByteBuffer buf, int offset, long owner, String applicationId) {
+        byte[] bytes = applicationId.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        int flag = 0;
+        if (length > MAX_APPLICATION_ID_BYTES) {
+            // Cut at a character boundary so the display form decodes cleanly
+            length = MAX_APPLICATION_ID_BYTES;
+            while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+                length--;
+            }
+            flag = TRUNCATED;
+        }
+        buf.putLong(offset, owner);
+        buf.putShort(offset + 8, (short) (length | flag));
+        for (int i = 0; i < length; i++) {
+            buf.put(offset + 10 + i, bytes[i]);
+        }
+    }
+
+    private static String readApplicationId(ByteBuffer buf, int offset) {
+        int header = buf.getShort(offset + 8) & 0xFFFF;
+        int length = header & ~TRUNCATED;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buf.get(offset + 10 + i);
+        }
+        String applicationId = new String(bytes, StandardCharsets.UTF_8);
+        return (header & TRUNCATED) != 0 ? applicationId + "..." : applicationId;
+    }
+}
@@ -0,0 +1,281 @@
+package org.digit.fraud.service.state;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size hash table of fixed-size slots stored in a memory-mapped file.
+ *
+ * Keys are 64-bit fingerprints (0 means empty). A key hashes to a group of
+ * {@value #GROUP_SIZE} consecutive slots and is only ever stored inside that group, so
+ * every operation touches at most one group under one striped lock, which bounds latency.
+ * When a group is full the least recently touched slot is recycled, which bounds the file
+ * size. The file is split into segments of at most 1 GiB because a single mapping cannot
+ * exceed 2 GiB.
+ *
+ * Slot layout: {@code [key:8][touchedAt:8][payload]}.
+ */
+final class MappedSlotTable implements Closeable {
+
+    static final int GROUP_SIZE = 16;
+    static final int SLOT_HEADER_BYTES = 16;
+
+    private static final int FILE_HEADER_BYTES = 64;
+    private static final long MAGIC = 0x4652415544535431L;
+    private static final int VERSION = 1;
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+    private static final int LOCK_STRIPES = 4096;
+
+    /**
+     * Callback run against a slot's payload while the slot's group lock is held.
+     */
+    interface SlotFunction<T> {
+        T apply(ByteBuffer segment, int payloadOffset, boolean created);
+    }
+
+    /**
+     * Primitive variant of {@link SlotFunction} for hot read paths.
+     */
+    interface LongSlotFunction {
+        long apply(ByteBuffer segment, int payloadOffset);
+    }
+
+    private final String name;
+    private final FileChannel channel;
+    private final int slotSize;
+    private final long capacity;
+    private final long groupMask;
+    private final int segmentShift;
+    private final long segmentMask;
+    private final MappedByteBuffer[] segments;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicLong occupied = new AtomicLong();
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two of at least {@value #GROUP_SIZE}
+     * @param payloadBytes bytes available to callers in each slot
+     */
+    MappedSlotTable(String name, Path file, long capacity, int payloadBytes) throws IOException {
+        this.name = name;
+        this.slotSize = SLOT_HEADER_BYTES + payloadBytes;
+        this.capacity = Math.max(GROUP_SIZE, Long.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        this.groupMask = this.capacity / GROUP_SIZE - 1;
+
+        long slotsPerSegment = Long.highestOneBit(MAX_SEGMENT_BYTES / slotSize);
+        slotsPerSegment = Math.min(slotsPerSegment, this.capacity);
+        this.segmentShift = Long.numberOfTrailingZeros(slotsPerSegment);
+        this.segmentMask = slotsPerSegment - 1;
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean fresh = channel.size() == 0;
+        checkHeader(file, fresh);
+
+        int segmentCount = (int) (this.capacity / slotsPerSegment);
+        long segmentBytes = slotsPerSegment * slotSize;
+        this.segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    FILE_HEADER_BYTES + i * segmentBytes, segmentBytes);
+        }
+        if (!fresh) {
+            occupied.set(countOccupied());
+        }
+    }
+
+    private void checkHeader(Path file, boolean fresh) throws IOException {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER_BYTES);
+        if (fresh) {
+            header.putLong(0, MAGIC);
+            header.putInt(8, VERSION);
+            header.putInt(12, slotSize);
+            header.putLong(16, capacity);
+            header.force();
+            return;
+        }
+        if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION) {
+            throw new IllegalStateException("Not a fraud state file: " + file);
+        }
+        if (header.getInt(12) != slotSize || header.getLong(16) != capacity) {
+            throw new IllegalStateException(String.format(
+                    "State file %s was created with slotSize=%d capacity=%d but configuration requires "
+                            + "slotSize=%d capacity=%d; move the file away or restore the old configuration",
+                    file, header.getInt(12), header.getLong(16), slotSize, capacity));
+        }
+    }
+
+    /**
+     * Run {@code fn} on the key's slot, claiming a slot in the key's group if the key is absent.
+     * A slot last touched before {@code minTouched} is treated as absent and its payload cleared.
+     */
+    <T> T upsert(long key, long now, long minTouched, SlotFunction<T> fn) {
+        long group = key & groupMask;
+        synchronized (lockFor(group)) {
+            long first = group * GROUP_SIZE;
+            long empty = -1;
+            long oldest = first;
+            long oldestTouched = Long.MAX_VALUE;
+            for (long slot = first; slot < first + GROUP_SIZE; slot++) {
+                ByteBuffer segment = segment(slot);
+                int offset = offset(slot);
+                long slotKey = segment.getLong(offset);
+                if (slotKey == key) {
+                    boolean expired = segment.getLong(offset + 8) < minTouched;
+                    segment.putLong(offset + 8, now);
+                    if (expired) {
+                        clearPayload(segment, offset);
+                    }
+                    return fn.apply(segment, offset + SLOT_HEADER_BYTES, expired);
+                }
+                if (slotKey == 0) {
+                    if (empty < 0) {
+                        empty = slot;
+                    }
+                } else {
+                    long touched = segment.getLong(offset + 8);
+                    if (touched < oldestTouched) {
+                        oldestTouched = touched;
+                        oldest = slot;
+                    }
+                }
+            }
+
+            long target = empty >= 0 ? empty : oldest;
+            ByteBuffer segment = segment(target);
+            int offset = offset(target);
+            if (empty >= 0) {
+                occupied.incrementAndGet();
+            }
+            segment.putLong(offset, key);
+            segment.putLong(offset + 8, now);
+            clearPayload(segment, offset);
+            return fn.apply(segment, offset + SLOT_HEADER_BYTES, true);
+        }
+    }
+
+    private void clearPayload(ByteBuffer segment, int offset) {
+        for (int i = SLOT_HEADER_BYTES; i < slotSize; i++) {
+            segment.put(offset + i, (byte) 0);
+        }
+    }
+
+    /**
+     * Run {@code fn} on the key's slot if it exists and was touched at or after {@code minTouched}.
+     *
+     * @return the function's result, or {@code absent}
+     */
+    long read(long key, long minTouched, LongSlotFunction fn, long absent) {
+        long group = key & groupMask;
+        synchronized (lockFor(group)) {
+            long first = group * GROUP_SIZE;
+            for (long slot = first; slot < first + GROUP_SIZE; slot++) {
+                ByteBuffer segment = segment(slot);
+                int offset = offset(slot);
+                if (segment.getLong(offset) == key) {
+                    if (segment.getLong(offset + 8) < minTouched) {
+                        return absent;
+                    }
+                    return fn.apply(segment, offset + SLOT_HEADER_BYTES);
+                }
+            }
+            return absent;
+        }
+    }
+
+    /**
+     * Clear every slot last touched before {@code cutoff}.
+     *
+     * @return the number of slots cleared
+     */
+    int evictOlderThan(long cutoff) {
+        int removed = 0;
+        for (long group = 0; group <= groupMask; group++) {
+            synchronized (lockFor(group)) {
+                long first = group * GROUP_SIZE;
+                for (long slot = first; slot < first + GROUP_SIZE; slot++) {
+                    ByteBuffer segment = segment(slot);
+                    int offset = offset(slot);
+                    if (segment.getLong(offset) != 0 && segment.getLong(offset + 8) < cutoff) {
+                        segment.putLong(offset, 0L);
+                        removed++;
+                    }
+                }
+            }
+        }
+        occupied.addAndGet(-removed);
+        return removed;
+    }
+
+    long size() {
+        return occupied.get();
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    String name() {
+        return name;
+    }
+
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private long countOccupied() {
+        long count = 0;
+        for (long slot = 0; slot < capacity; slot++) {
+            if (segment(slot).getLong(offset(slot)) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Object lockFor(long group) {
+        return locks[(int) (group & (LOCK_STRIPES - 1))];
+    }
+
+    private ByteBuffer segment(long slot) {
+        return segments[(int) (slot >>> segmentShift)];
+    }
+
+    private int offset(long slot) {
+        return (int) ((slot & segmentMask) * slotSize);
+    }
+
+    /**
+     * 64-bit FNV-1a over the key's chars followed by a murmur3 finaliser; never returns 0.
+     */
+    static long fingerprint(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+}
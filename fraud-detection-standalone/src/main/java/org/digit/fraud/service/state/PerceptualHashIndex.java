@@ -0,0 +1,244 @@
+package org.digit.fraud.service.state;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Multi-index hash table over 64-bit perceptual image hashes (pHash / dHash).
+ *
+ * Every hash is split into {@value #CHUNKS} chunks of {@value #CHUNK_BITS} bits and filed
+ * under each chunk value. Two hashes within Hamming distance {@code k} must agree on at least
+ * one chunk to within {@code k / CHUNKS} bits, so a query only probes the buckets of chunk
+ * values that close to its own and compares the full hash of the entries found there. For
+ * {@code k <= 7} that is 68 buckets per query, each holding roughly {@code size / 65536}
+ * entries, instead of a scan over every stored hash.
+ *
+ * Entries older than the retention period are ignored by queries and removed by
+ * {@link #evictExpired(long)}. The index lives on the heap regardless of
+ * {@code fraud.state.backend}.
+ */
+@Component
+public class PerceptualHashIndex {
+
+    public static final int HASH_BITS = 64;
+    /** Largest supported query distance; beyond it the number of probed buckets explodes. */
+    public static final int MAX_DISTANCE = 15;
+
+    private static final int CHUNKS = 4;
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    private final long retentionMs;
+    private final ArrayList<Entry>[][] buckets;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PerceptualHashIndex(@Value("${fraud.state.image-hashes.retention-hours:720}") long retentionHours) {
+        this.retentionMs = retentionHours * HOUR_MS;
+        this.buckets = new ArrayList[CHUNKS][1 << CHUNK_BITS];
+    }
+
+    /**
+     * Parse a hash as sent by clients: 16 hex digits, optionally prefixed with {@code 0x}.
+     *
+     * @throws NumberFormatException if the value is not a 64-bit hex number
+     */
+    public static long parse(String hex) {
+        String digits = hex.startsWith("0x") || hex.startsWith("0X") ? hex.substring(2) : hex;
+        if (digits.isEmpty() || digits.length() > HASH_BITS / 4) {
+            throw new NumberFormatException("Not a 64-bit hex hash: " + hex);
+        }
+        return Long.parseUnsignedLong(digits, 16);
+    }
+
+    /**
+     * Add a hash. Re-adding the same hash for the same application only refreshes its timestamp.
+     */
+    public void add(long hash, String applicationId, long timestamp) {
+        lock.writeLock().lock();
+        try {
+            ArrayList<Entry> first = bucket(0, chunk(hash, 0), true);
+            for (Entry entry : first) {
+                if (entry.hash == hash && entry.applicationId.equals(applicationId)) {
+                    entry.recordedAt = Math.max(entry.recordedAt, timestamp);
+                    return;
+                }
+            }
+            Entry entry = new Entry(hash, applicationId, timestamp);
+            for (int c = 0; c < CHUNKS; c++) {
+                bucket(c, chunk(hash, c), true).add(entry);
+            }
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the closest hash within {@code maxDistance} bits recorded after {@code since} by an
+     * application other than {@code excludeApplicationId}. Ties go to the earliest submission.
+     *
+     * @return the match, or null if there is none
+     * @throws IllegalArgumentException if {@code maxDistance} exceeds {@link #MAX_DISTANCE}
+     */
+    public Match findNearest(long hash, int maxDistance, long since, String excludeApplicationId) {
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+            throw new IllegalArgumentException("Unsupported Hamming distance: " + maxDistance);
+        }
+        int chunkRadius = maxDistance / CHUNKS;
+        Entry best = null;
+        int bestDistance = Integer.MAX_VALUE;
+
+        lock.readLock().lock();
+        try {
+            for (int c = 0; c < CHUNKS; c++) {
+                int[] probes = neighbours(chunk(hash, c), chunkRadius);
+                for (int probe : probes) {
+                    ArrayList<Entry> bucket = bucket(c, probe, false);
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (int i = 0, n = bucket.size(); i < n; i++) {
+                        Entry entry = bucket.get(i);
+                        if (entry.recordedAt <= since || entry.applicationId.equals(excludeApplicationId)) {
+                            continue;
+                        }
+                        int distance = Long.bitCount(entry.hash ^ hash);
+                        if (distance <= maxDistance && (distance < bestDistance ||
+                                (distance == bestDistance && entry.recordedAt < best.recordedAt))) {
+                            best = entry;
+                            bestDistance = distance;
+                        }
+                    }
+                }
+            }
+            return best != null ? new Match(best.applicationId, best.hash, bestDistance, best.recordedAt) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drop hashes older than the retention period.
+     *
+     * @return the number of hashes removed
+     */
+    public int evictExpired(long now) {
+        long cutoff = now - retentionMs;
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (int c = 0; c < CHUNKS; c++) {
+                ArrayList<Entry>[] table = buckets[c];
+                for (int v = 0; v < table.length; v++) {
+                    ArrayList<Entry> bucket = table[v];
+                    if (bucket == null) {
+                        continue;
+                    }
+                    int before = bucket.size();
+                    bucket.removeIf(entry -> entry.recordedAt < cutoff);
+                    if (c == 0) {
+                        removed += before - bucket.size();
+                    }
+                    if (bucket.isEmpty()) {
+                        table[v] = null;
+                    }
+                }
+            }
+            size -= removed;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ArrayList<Entry> bucket(int chunk, int value, boolean create) {
+        ArrayList<Entry> bucket = buckets[chunk][value];
+        if (bucket == null && create) {
+            bucket = new ArrayList<>(2);
+            buckets[chunk][value] = bucket;
+        }
+        return bucket;
+    }
+
+    private static int chunk(long hash, int index) {
+        return (int) (hash >>> (index * CHUNK_BITS)) & CHUNK_MASK;
+    }
+
+    /**
+     * All chunk values within {@code radius} bits of {@code value}, including itself.
+     */
+    private static int[] neighbours(int value, int radius) {
+        List<Integer> values = new ArrayList<>();
+        collectNeighbours(value, radius, 0, values);
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    private static void collectNeighbours(int value, int radius, int fromBit, List<Integer> out) {
+        out.add(value);
+        if (radius == 0) {
+            return;
+        }
+        for (int bit = fromBit; bit < CHUNK_BITS; bit++) {
+            collectNeighbours(value ^ (1 << bit), radius - 1, bit + 1, out);
+        }
+    }
+
+    private static final class Entry {
+        private final long hash;
+        private final String applicationId;
+        private long recordedAt;
+
+        private Entry(long hash, String applicationId, long recordedAt) {
+            this.hash = hash;
+            this.applicationId = applicationId;
+            this.recordedAt = recordedAt;
+        }
+    }
+
+    /**
+     * A previously submitted image close to the queried one.
+     */
+    @Getter
+    public static final class Match {
+
+        private final String applicationId;
+        private final long hash;
+        private final int distance;
+        private final long recordedAt;
+
+        public Match(String applicationId, long hash, int distance, long recordedAt) {
+            this.applicationId = applicationId;
+            this.hash = hash;
+            this.distance = distance;
+            this.recordedAt = recordedAt;
+        }
+
+        /**
+         * Fraction of matching bits, 1.0 for identical hashes.
+         */
+        public double getSimilarity() {
+            return 1.0 - (double) distance / HASH_BITS;
+        }
+    }
+}
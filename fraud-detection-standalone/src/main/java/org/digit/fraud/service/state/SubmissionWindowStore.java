@@ -0,0 +1,131 @@
+package org.digit.fraud.service.state;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-applicant sliding window of recent submission timestamps.
+ *
+ * Each applicant owns a fixed-size ring of primitive longs holding its most recent
+ * submissions, so memory per key is constant and window queries cost at most
+ * {@code capacity} comparisons. Counts saturate at {@code capacity}; VELOCITY and
+ * AGGREGATE_COUNT rules whose threshold exceeds it are quarantined when the rules are loaded.
+ * Applicants with no submission
+ * inside the retention period are dropped by {@link #evictExpired(long)}.
+ */
+public class SubmissionWindowStore {
+
+    public static final long NONE = FraudStateStore.NONE;
+
+    private final int capacity;
+    private final long retentionMs;
+    private final ConcurrentHashMap<String, Ring> rings = new ConcurrentHashMap<>();
+
+    public SubmissionWindowStore(int capacity, long retentionMs) {
+        this.capacity = capacity;
+        this.retentionMs = retentionMs;
+    }
+
+    public void record(String applicantId, long timestamp) {
+        rings.compute(applicantId, (key, ring) -> {
+            Ring target = ring != null ? ring : new Ring(capacity);
+            synchronized (target) {
+                target.add(timestamp);
+            }
+            return target;
+        });
+    }
+
+    /**
+     * Number of recorded submissions strictly after {@code since}, capped at the ring capacity.
+     */
+    public int countSince(String applicantId, long since) {
+        Ring ring = rings.get(applicantId);
+        if (ring == null) {
+            return 0;
+        }
+        synchronized (ring) {
+            return ring.countSince(since);
+        }
+    }
+
+    /**
+     * Timestamp of the most recent submission, or {@link #NONE} if there is none.
+     */
+    public long lastTimestamp(String applicantId) {
+        Ring ring = rings.get(applicantId);
+        if (ring == null) {
+            return NONE;
+        }
+        synchronized (ring) {
+            return ring.last();
+        }
+    }
+
+    /**
+     * Drop applicants whose latest submission is older than the retention period.
+     *
+     * @return the number of applicants removed
+     */
+    public int evictExpired(long now) {
+        long cutoff = now - retentionMs;
+        int[] removed = new int[1];
+        for (String applicantId : rings.keySet()) {
+            rings.computeIfPresent(applicantId, (key, ring) -> {
+                synchronized (ring) {
+                    if (ring.last() < cutoff) {
+                        removed[0]++;
+                        return null;
+                    }
+                    return ring;
+                }
+            });
+        }
+        return removed[0];
+    }
+
+    public int size() {
+        return rings.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private static final class Ring {
+
+        private final long[] timestamps;
+        private int head;
+        private int size;
+
+        Ring(int capacity) {
+            this.timestamps = new long[capacity];
+        }
+
+        void add(long timestamp) {
+            timestamps[head] = timestamp;
+            head = (head + 1) % timestamps.length;
+            if (size < timestamps.length) {
+                size++;
+            }
+        }
+
+        long last() {
+            if (size == 0) {
+                return NONE;
+            }
+            return timestamps[(head - 1 + timestamps.length) % timestamps.length];
+        }
+
+        int countSince(long since) {
+            int count = 0;
+            int index = head;
+            for (int i = 0; i < size; i++) {
+                index = index == 0 ? timestamps.length - 1 : index - 1;
+                if (timestamps[index] > since) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
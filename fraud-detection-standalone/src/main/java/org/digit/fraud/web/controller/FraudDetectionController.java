@@ -1,13 +1,23 @@
 package org.digit.fraud.web.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.digit.fraud.model.*;
+import org.digit.fraud.service.AsyncEvaluationService;
+import org.digit.fraud.service.ExpressionEvaluatorService;
 import org.digit.fraud.service.FraudDetectionService;
 import org.digit.fraud.service.MDMSService;
+import org.digit.fraud.service.TieredEvaluationService;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -19,8 +29,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FraudDetectionController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final FraudDetectionService fraudDetectionService;
+    private final AsyncEvaluationService asyncEvaluationService;
+    private final TieredEvaluationService tieredEvaluationService;
     private final MDMSService mdmsService;
+    private final ExpressionEvaluatorService expressionEvaluator;
+    private final ObjectMapper objectMapper;
 
     /**
      * Full fraud evaluation - runs both internal and external rules
@@ -59,16 +75,58 @@ public class FraudDetectionController {
     }
 
     /**
-     * External rules only - for async/ML-based evaluation
+     * External rules only - for async/ML-based evaluation. Returns a job handle immediately;
+     * poll {@code GET /v1/_evaluateAsync/{jobId}} or pass {@code callbackUrl} to receive the
+     * finished job.
      */
     @PostMapping("/_evaluateAsync")
-    public ResponseEntity<ResponseWrapper<FraudEvaluationResponse>> evaluateAsync(
-            @RequestBody RequestWrapper<FraudEvaluationRequest> requestWrapper) {
+    public ResponseEntity<ResponseWrapper<EvaluationJob>> evaluateAsync(
+            @RequestBody RequestWrapper<FraudEvaluationRequest> requestWrapper,
+            @RequestParam(required = false) String callbackUrl) {
 
         log.info("Received async evaluation request for application: {}",
                 requestWrapper.getRequest().getApplicationId());
 
-        FraudEvaluationResponse response = fraudDetectionService.evaluateExternalOnly(requestWrapper.getRequest());
+        String msgId = requestWrapper.getRequestInfo() != null ?
+                requestWrapper.getRequestInfo().getMsgId() : UUID.randomUUID().toString();
+
+        try {
+            EvaluationJob job = asyncEvaluationService.submit(requestWrapper.getRequest(), callbackUrl);
+            return ResponseEntity.accepted().body(ResponseWrapper.success(job, msgId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ResponseWrapper.error("callback not allowed", msgId));
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ResponseWrapper.error("rejected: async evaluation queue full", msgId));
+        }
+    }
+
+    /**
+     * Status, and once finished the result, of an async evaluation
+     */
+    @GetMapping("/_evaluateAsync/{jobId}")
+    public ResponseEntity<ResponseWrapper<EvaluationJob>> getAsyncEvaluation(@PathVariable String jobId) {
+        EvaluationJob job = asyncEvaluationService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ResponseWrapper.error("not found", UUID.randomUUID().toString()));
+        }
+        return ResponseEntity.ok(ResponseWrapper.success(job, UUID.randomUUID().toString()));
+    }
+
+    /**
+     * Tiered evaluation - returns the provisional score of the internal rules immediately and
+     * merges the external rules in the background. Poll {@code GET /v1/_evaluateTiered/{applicationId}}
+     * for the merged score; {@code stage} is FINAL once every external rule has been merged.
+     */
+    @PostMapping("/_evaluateTiered")
+    public ResponseEntity<ResponseWrapper<FraudEvaluationResponse>> evaluateTiered(
+            @RequestBody RequestWrapper<FraudEvaluationRequest> requestWrapper) {
+
+        log.info("Received tiered evaluation request for application: {}",
+                requestWrapper.getRequest().getApplicationId());
+
+        FraudEvaluationResponse response = tieredEvaluationService.evaluate(requestWrapper.getRequest());
 
         String msgId = requestWrapper.getRequestInfo() != null ?
                 requestWrapper.getRequestInfo().getMsgId() : UUID.randomUUID().toString();
@@ -76,6 +134,49 @@ public class FraudDetectionController {
         return ResponseEntity.ok(ResponseWrapper.success(response, msgId));
     }
 
+    /**
+     * Latest merged score of the most recent tiered evaluation of an application
+     */
+    @GetMapping("/_evaluateTiered/{applicationId}")
+    public ResponseEntity<ResponseWrapper<FraudEvaluationResponse>> getTieredEvaluation(
+            @PathVariable String applicationId) {
+        FraudEvaluationResponse response = tieredEvaluationService.getLatest(applicationId);
+        if (response == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ResponseWrapper.error("not found", UUID.randomUUID().toString()));
+        }
+        return ResponseEntity.ok(ResponseWrapper.success(response, UUID.randomUUID().toString()));
+    }
+
+    /**
+     * Internal rules for a list of applications, evaluated in parallel. Responses are streamed
+     * back as newline-delimited JSON in completion order, one FraudEvaluationResponse per line;
+     * match them to requests by applicationId.
+     */
+    @PostMapping(value = "/_evaluateBatch", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> evaluateBatch(
+            @RequestBody RequestWrapper<List<FraudEvaluationRequest>> requestWrapper) {
+
+        List<FraudEvaluationRequest> requests = requestWrapper.getRequest() != null ?
+                requestWrapper.getRequest() : List.of();
+
+        log.info("Received batch evaluation request for {} applications", requests.size());
+
+        StreamingResponseBody body = out -> fraudDetectionService.evaluateBatch(requests, response -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(response));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
     /**
      * Search/list available fraud rules
      */
@@ -117,6 +218,36 @@ public class FraudDetectionController {
         return ResponseEntity.ok(ResponseWrapper.success(rules, UUID.randomUUID().toString()));
     }
 
+    /**
+     * Reload FraudRules.json and RiskScoreConfig.json without a restart
+     */
+    @PostMapping("/rules/_reload")
+    public ResponseEntity<ResponseWrapper<Map<String, Object>>> reloadRules() {
+        log.info("Reloading fraud rules");
+        String msgId = UUID.randomUUID().toString();
+        try {
+            long version = mdmsService.reload();
+            return ResponseEntity.ok(ResponseWrapper.success(Map.of(
+                    "version", version,
+                    "rulesLoaded", mdmsService.getAllRules().size(),
+                    "rulesQuarantined", mdmsService.getQuarantinedRules().size()), msgId));
+        } catch (IOException e) {
+            log.error("Rule reload failed: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ResponseWrapper.error("reload failed: " + e.getMessage(), msgId));
+        }
+    }
+
+    /**
+     * Rules left out of evaluation because they failed to compile, e.g. an invalid expression
+     */
+    @GetMapping("/rules/_quarantined")
+    public ResponseEntity<ResponseWrapper<List<QuarantinedRule>>> getQuarantinedRules() {
+        return ResponseEntity.ok(ResponseWrapper.success(
+                mdmsService.getQuarantinedRules(),
+                UUID.randomUUID().toString()));
+    }
+
     /**
      * Get risk score configuration
      */
@@ -141,7 +272,10 @@ public class FraudDetectionController {
                 "service", "fraud-detection-standalone",
                 "version", "1.0.0",
                 "rulesLoaded", ruleCount,
+                "rulesVersion", mdmsService.getVersion(),
+                "rulesQuarantined", mdmsService.getQuarantinedRules().size(),
                 "categoriesConfigured", categoryCount,
+                "expressionCache", expressionEvaluator.getCacheStats(),
                 "timestamp", System.currentTimeMillis()
         ));
     }
@@ -0,0 +1,25 @@
+package org.digit.fraud.web.endpoint;
+
+import lombok.RequiredArgsConstructor;
+import org.digit.fraud.service.RuleStatistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/rulestats}: per-rule latency and trigger statistics, in evaluation order.
+ */
+@Component
+@Endpoint(id = "rulestats")
+@RequiredArgsConstructor
+public class RuleStatisticsEndpoint {
+
+    private final RuleStatistics ruleStatistics;
+
+    @ReadOperation
+    public Map<String, Object> ruleStatistics() {
+        return ruleStatistics.snapshot();
+    }
+}
@@ -0,0 +1,59 @@
+package org.digit.fraud.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CallbackAllowListTest {
+
+    private final CallbackAllowList allowList = new CallbackAllowList(
+            List.of("https://sdcrs.internal/hooks", "http://localhost:8080/", " "));
+
+    @Test
+    void allowsUrlsUnderAPrefix() {
+        for (String url : List.of(
+                "https://sdcrs.internal/hooks",
+                "https://sdcrs.internal/hooks/",
+                "https://sdcrs.internal/hooks/fraud?job=1",
+                "https://SDCRS.internal:443/hooks/fraud",
+                "HTTPS://sdcrs.internal/hooks/a/../b",
+                "http://localhost:8080/anything")) {
+            assertTrue(allowList.allows(url), url);
+        }
+    }
+
+    @Test
+    void rejectsOtherHostsPortsSchemesAndPaths() {
+        for (String url : List.of(
+                "https://sdcrs.internal.attacker.com/hooks",
+                "https://sdcrs.internal@attacker.com/hooks",
+                "https://user@sdcrs.internal/hooks",
+                "https://sdcrs.internal:8443/hooks",
+                "http://sdcrs.internal/hooks",
+                "https://sdcrs.internal/hooks-other",
+                "https://sdcrs.internal/hooks/../admin",
+                "https://sdcrs.internal/",
+                "http://localhost:8081/",
+                "http://localhost/",
+                "ftp://localhost:8080/",
+                "/hooks/relative",
+                "https://sdcrs.internal/hooks with space",
+                "")) {
+            assertFalse(allowList.allows(url), url);
+        }
+    }
+
+    @Test
+    void emptyListAllowsNothing() {
+        assertFalse(new CallbackAllowList(List.of()).allows("https://sdcrs.internal/hooks"));
+    }
+
+    @Test
+    void rejectsInvalidPrefixes() {
+        assertThrows(IllegalArgumentException.class, () -> new CallbackAllowList(List.of("sdcrs.internal/hooks")));
+    }
+}
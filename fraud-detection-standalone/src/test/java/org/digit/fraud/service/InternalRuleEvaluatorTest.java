@@ -0,0 +1,103 @@
+package org.digit.fraud.service;
+
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.model.FraudEvaluationRequest.ApplicantInfo;
+import org.digit.fraud.model.FraudEvaluationRequest.EvidenceData;
+import org.digit.fraud.model.FraudEvaluationRequest.EvidenceMetadata;
+import org.digit.fraud.model.FraudEvaluationResponse.RuleResult;
+import org.digit.fraud.model.FraudRule;
+import org.digit.fraud.service.rule.CompiledRule;
+import org.digit.fraud.service.rule.IntervalRule;
+import org.digit.fraud.service.rule.TimeWindowRule;
+import org.digit.fraud.service.rule.TimestampAgeRule;
+import org.digit.fraud.service.state.GeoGridIndex;
+import org.digit.fraud.service.state.InMemoryFraudStateStore;
+import org.digit.fraud.service.state.LastPositionStore;
+import org.digit.fraud.service.state.PerceptualHashIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.SpelCompilerMode;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InternalRuleEvaluatorTest {
+
+    private static final long HOUR_MS = 3_600_000L;
+    /** Monday 11:00 in Asia/Kolkata. */
+    private static final long MONDAY_MORNING = Instant.parse("2024-03-04T05:30:00Z").toEpochMilli();
+
+    private final InternalRuleEvaluator evaluator = new InternalRuleEvaluator(
+            new ExpressionEvaluatorService(1000, SpelCompilerMode.OFF, false, true),
+            new InMemoryFraudStateStore(32, 744, 720, 168),
+            new PerceptualHashIndex(720),
+            new GeoGridIndex(100, 1024, 48),
+            new LastPositionStore(1024, 24),
+            Clock.systemUTC());
+
+    @Test
+    void submissionHistoryIsKeptAtTheEvaluationTime() {
+        CompiledRule rapid = new IntervalRule(fraudRule("RAPID"), 10, 5, 5 * 60_000L);
+
+        assertFalse(submit(rapid, MONDAY_MORNING).isTriggered());
+        assertFalse(submit(rapid, MONDAY_MORNING + HOUR_MS).isTriggered());
+        assertTrue(submit(rapid, MONDAY_MORNING + HOUR_MS + 60_000).isTriggered());
+    }
+
+    @Test
+    void evidenceAgeAndTimeWindowsAreJudgedAtTheEvaluationTime() {
+        CompiledRule stale = new TimestampAgeRule(fraudRule("STALE"), 10, 48, 48 * HOUR_MS);
+        CompiledRule schoolHours = new TimeWindowRule(fraudRule("HOURS"), 10, ZoneId.of("Asia/Kolkata"),
+                List.of(new TimeWindowRule.AllowedWindow(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY),
+                        LocalTime.of(7, 0), LocalTime.of(18, 0))));
+        FraudEvaluationRequest request = request(MONDAY_MORNING - HOUR_MS);
+
+        PreparedRequest submitted = new PreparedRequest(request, false, MONDAY_MORNING);
+        assertFalse(evaluator.evaluate(stale, submitted).isTriggered());
+        assertFalse(evaluator.evaluate(schoolHours, submitted).isTriggered());
+
+        // Tuesday 01:00, 15 hours after the photo
+        PreparedRequest atNight = new PreparedRequest(request, false, MONDAY_MORNING + 14 * HOUR_MS);
+        assertFalse(evaluator.evaluate(stale, atNight).isTriggered());
+        assertTrue(evaluator.evaluate(schoolHours, atNight).isTriggered());
+
+        PreparedRequest daysLater = new PreparedRequest(request, false, MONDAY_MORNING + 72 * HOUR_MS);
+        assertTrue(evaluator.evaluate(stale, daysLater).isTriggered());
+    }
+
+    private RuleResult submit(CompiledRule rule, long now) {
+        PreparedRequest prepared = new PreparedRequest(request(now), false, now);
+        RuleResult result = evaluator.evaluate(rule, prepared);
+        evaluator.recordSubmission(prepared);
+        return result;
+    }
+
+    private static FraudEvaluationRequest request(long photoTimestamp) {
+        return FraudEvaluationRequest.builder()
+                .applicationId("SDCRS-" + photoTimestamp)
+                .applicantInfo(ApplicantInfo.builder().applicantId("TEACHER-1").build())
+                .evidences(List.of(EvidenceData.builder()
+                        .purpose("DOG_PHOTO")
+                        .metadata(EvidenceMetadata.builder().timestamp(photoTimestamp).build())
+                        .build()))
+                .build();
+    }
+
+    private static FraudRule fraudRule(String code) {
+        return FraudRule.builder()
+                .id(code)
+                .code(code)
+                .name(code)
+                .severity("LOW")
+                .ruleType("INTERNAL")
+                .enabled(true)
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package org.digit.fraud.service;
+
+import org.digit.fraud.model.FraudEvaluationResponse.RuleResult;
+import org.digit.fraud.model.FraudRule;
+import org.digit.fraud.service.rule.CompiledRule;
+import org.digit.fraud.service.rule.NullCheckRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutcomeBoundTest {
+
+    private static final int APPROVE = 30;
+    private static final int AUTO_REJECT = 70;
+
+    /**
+     * One row per case: rules already evaluated (triggered or not), rules still pending, and
+     * whether the recommendation is already fixed. Scores use approve <= 30, reject >= 70.
+     */
+    private record Case(String name, List<Evaluated> evaluated, List<CompiledRule> pending, boolean decided) {
+    }
+
+    /** A null message stands for a failed evaluation, recorded with a null result. */
+    private record Evaluated(CompiledRule rule, boolean triggered, String message) {
+    }
+
+    @Test
+    void decidesOnlyWhenNoRemainingOutcomeCanChangeTheRecommendation() {
+        List<Case> cases = List.of(
+                new Case("nothing evaluated, approve bound reachable only",
+                        List.of(), List.of(rule("P1", 20, "LOW")), true),
+                new Case("nothing evaluated, remaining rules can reach review",
+                        List.of(), List.of(rule("P1", 31, "LOW")), false),
+                new Case("approve boundary is inclusive",
+                        List.of(hit(rule("E1", 30, "LOW"))), List.of(), true),
+                new Case("at approve boundary, one more point reaches review",
+                        List.of(hit(rule("E1", 30, "LOW"))), List.of(rule("P1", 1, "LOW")), false),
+                new Case("passed rules add nothing",
+                        List.of(pass(rule("E1", 60, "HIGH"))), List.of(rule("P1", 10, "LOW")), true),
+                new Case("in review, reject bound out of reach",
+                        List.of(hit(rule("E1", 31, "MEDIUM"))), List.of(rule("P1", 38, "LOW")), true),
+                new Case("in review, reject boundary reachable",
+                        List.of(hit(rule("E1", 31, "MEDIUM"))), List.of(rule("P1", 39, "LOW")), false),
+                new Case("reject boundary is inclusive",
+                        List.of(hit(rule("E1", 70, "HIGH"))), List.of(rule("P1", 20, "LOW")), true),
+                new Case("pending high-score rule can reach reject",
+                        List.of(hit(rule("E1", 31, "MEDIUM"))), List.of(rule("P1", 80, "HIGH")), false),
+                new Case("pending CRITICAL rule could force reject",
+                        List.of(), List.of(rule("P1", 0, "CRITICAL")), false),
+                new Case("pending CRITICAL rule blocks an otherwise decided review",
+                        List.of(hit(rule("E1", 40, "MEDIUM"))), List.of(rule("P1", 5, "CRITICAL")), false),
+                new Case("triggered CRITICAL rule rejects",
+                        List.of(hit(rule("E1", 5, "CRITICAL"))), List.of(rule("P1", 50, "LOW")), true),
+                new Case("AUTO_REJECT message rejects",
+                        List.of(new Evaluated(rule("E1", 5, "LOW"), true, "AUTO_REJECT: duplicate")),
+                        List.of(rule("P1", 50, "LOW"), rule("P2", 0, "CRITICAL")), true),
+                new Case("failed CRITICAL evaluation releases its guard",
+                        List.of(failed(rule("E1", 5, "CRITICAL"))),
+                        List.of(rule("P1", 10, "LOW")), true));
+
+        for (Case c : cases) {
+            OutcomeBound bound = new OutcomeBound(APPROVE, AUTO_REJECT);
+            List<CompiledRule> all = new ArrayList<>(c.pending());
+            c.evaluated().forEach(e -> all.add(e.rule()));
+            bound.expect(all);
+            for (Evaluated e : c.evaluated()) {
+                bound.record(e.rule(), e.message() == null ? null : result(e));
+            }
+            assertEquals(c.decided(), bound.isDecided(), c.name());
+        }
+    }
+
+    @Test
+    void skippedRulesReleaseTheirScoreAndAreReported() {
+        CompiledRule high = rule("HIGH_SCORE", 50, "HIGH");
+        CompiledRule critical = rule("CRITICAL_CHECK", 0, "CRITICAL");
+        OutcomeBound bound = new OutcomeBound(APPROVE, AUTO_REJECT);
+        bound.expect(List.of(high, critical));
+        assertFalse(bound.isDecided());
+
+        bound.skip(critical);
+        assertFalse(bound.isDecided());
+        bound.skip(high);
+        assertTrue(bound.isDecided());
+        assertEquals(List.of("CRITICAL_CHECK", "HIGH_SCORE"), bound.getSkipped());
+    }
+
+    private static Evaluated hit(CompiledRule rule) {
+        return new Evaluated(rule, true, "Triggered");
+    }
+
+    private static Evaluated pass(CompiledRule rule) {
+        return new Evaluated(rule, false, "Passed");
+    }
+
+    private static Evaluated failed(CompiledRule rule) {
+        return new Evaluated(rule, false, null);
+    }
+
+    private static RuleResult result(Evaluated e) {
+        return RuleResult.builder()
+                .ruleCode(e.rule().getCode())
+                .severity(e.rule().getSeverity())
+                .triggered(e.triggered())
+                .score(e.triggered() ? e.rule().getScore() : 0)
+                .message(e.message())
+                .build();
+    }
+
+    private static CompiledRule rule(String code, int score, String severity) {
+        FraudRule rule = FraudRule.builder()
+                .id(code)
+                .code(code)
+                .name(code)
+                .severity(severity)
+                .ruleType("INTERNAL")
+                .enabled(true)
+                .build();
+        return new NullCheckRule(rule, score, "photo", false);
+    }
+}
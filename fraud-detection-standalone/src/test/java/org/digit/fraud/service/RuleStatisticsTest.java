@@ -0,0 +1,119 @@
+package org.digit.fraud.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.digit.fraud.model.FraudEvaluationResponse.RuleResult;
+import org.digit.fraud.model.FraudRule;
+import org.digit.fraud.service.rule.CompiledRule;
+import org.digit.fraud.service.rule.NullCheckRule;
+import org.digit.fraud.service.rule.VelocityRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuleStatisticsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final RuleStatistics statistics = new RuleStatistics(registry, 1);
+
+    @Test
+    void ordersEachInstalledModuleOnceAndFallsBackForReplacedVersions() {
+        CompiledRule slow = nullCheck("SLOW", 10);
+        CompiledRule fast = nullCheck("FAST", 10);
+        ModuleRules v1 = module(slow, fast);
+        statistics.install(1, List.of(v1));
+
+        statistics.record(slow, 5_000_000, passed(slow));
+        statistics.record(fast, 1_000, passed(fast));
+        statistics.refreshRanks();
+
+        List<CompiledRule> ordered = statistics.evaluationOrder(v1);
+        assertEquals(List.of(fast, slow), ordered);
+        assertSame(ordered, statistics.evaluationOrder(v1));
+
+        ModuleRules v2 = module(slow, fast);
+        statistics.install(2, List.of(v2));
+        assertEquals(List.of(fast, slow), statistics.evaluationOrder(v2));
+        assertEquals(v1.getInternal(), statistics.evaluationOrder(v1));
+    }
+
+    @Test
+    void dropsStatisticsAndMetersOfDeletedAndChangedRules() {
+        CompiledRule kept = nullCheck("KEPT", 10);
+        CompiledRule deleted = nullCheck("DELETED", 10);
+        CompiledRule rescored = nullCheck("RESCORED", 10);
+        statistics.install(1, List.of(module(kept, deleted, rescored)));
+        for (CompiledRule rule : List.of(kept, deleted, rescored)) {
+            statistics.record(rule, 1_000, passed(rule));
+        }
+        assertNotNull(ruleTimer("DELETED"));
+
+        CompiledRule rescoredV2 = nullCheck("RESCORED", 20);
+        statistics.install(2, List.of(module(kept, rescoredV2)));
+
+        assertNull(ruleTimer("DELETED"));
+        assertNull(ruleTimer("RESCORED"));
+        assertEquals(1, ruleTimer("KEPT").count());
+        assertEquals(List.of("KEPT"), List.copyOf(statistics.snapshot().keySet()));
+
+        // A request still running on version 1 does not bring the old rule back
+        statistics.record(deleted, 1_000, passed(deleted));
+        statistics.record(rescored, 1_000, passed(rescored));
+        assertFalse(statistics.snapshot().containsKey("DELETED"));
+        assertFalse(statistics.snapshot().containsKey("RESCORED"));
+
+        statistics.record(rescoredV2, 1_000, passed(rescoredV2));
+        assertTrue(statistics.snapshot().containsKey("RESCORED"));
+        assertEquals(1, ruleTimer("RESCORED").count());
+    }
+
+    @Test
+    void changedConditionTypeStartsOver() {
+        CompiledRule before = nullCheck("RULE", 10);
+        statistics.install(1, List.of(module(before)));
+        statistics.record(before, 1_000, passed(before));
+
+        CompiledRule after = new VelocityRule(fraudRule("RULE"), 10, 3, 24, 24L * 3_600_000);
+        statistics.install(2, List.of(module(after)));
+        statistics.record(after, 1_000, passed(after));
+
+        assertNull(registry.find("fraud.rule.evaluation").tags("rule", "RULE", "conditionType", "NULL_CHECK").timer());
+        assertEquals(1, registry.find("fraud.rule.evaluation").tags("rule", "RULE", "conditionType", "VELOCITY")
+                .timer().count());
+    }
+
+    private Timer ruleTimer(String code) {
+        return registry.find("fraud.rule.evaluation").tag("rule", code).timer();
+    }
+
+    private static ModuleRules module(CompiledRule... rules) {
+        return ModuleRules.of(null, List.of(), List.of(rules));
+    }
+
+    private static CompiledRule nullCheck(String code, int score) {
+        return new NullCheckRule(fraudRule(code), score, "photo", false);
+    }
+
+    private static FraudRule fraudRule(String code) {
+        return FraudRule.builder()
+                .id(code)
+                .code(code)
+                .name(code)
+                .severity("LOW")
+                .ruleType("INTERNAL")
+                .enabled(true)
+                .build();
+    }
+
+    private static RuleResult passed(CompiledRule rule) {
+        return rule.getPassResult();
+    }
+}
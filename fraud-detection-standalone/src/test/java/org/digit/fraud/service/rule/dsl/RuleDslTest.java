@@ -0,0 +1,218 @@
+package org.digit.fraud.service.rule.dsl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.digit.fraud.model.FraudEvaluationRequest;
+import org.digit.fraud.model.FraudEvaluationRequest.ApplicantInfo;
+import org.digit.fraud.model.FraudEvaluationRequest.EvidenceData;
+import org.digit.fraud.model.FraudEvaluationRequest.LocationData;
+import org.digit.fraud.service.ExpressionEvaluatorService;
+import org.digit.fraud.service.rule.CompiledExpression;
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.SpelCompilerMode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuleDslTest {
+
+    private static final String ERROR = "error";
+
+    private final ExpressionEvaluatorService spel =
+            new ExpressionEvaluatorService(1000, SpelCompilerMode.OFF, false, true);
+
+    @Test
+    void shippedCustomExpressionsMatchSpel() throws IOException {
+        List<String> expressions = shippedCustomExpressions();
+        assertTrue(expressions.size() >= 6, "CUSTOM rules in FraudRules.json: " + expressions.size());
+        for (String expression : expressions) {
+            assertSameAsSpel(expression);
+        }
+    }
+
+    @Test
+    void arithmeticMatchesSpel() {
+        for (String expression : List.of(
+                "10 / 3 == 3",
+                "10 / 4 == 2.5",
+                "10 % 3 == 1",
+                "-5 / 2 == -2",
+                "-5 % 3 == -2",
+                "7.0 / 2 == 3.5",
+                "1e2 / 3 > 33.3",
+                "2147483647 + 1 < 0",
+                "'a' + 'b' == 'ab'",
+                "'a' + 1 == 'a1'",
+                "1.5 + 'x' == '1.5x'",
+                "'a' + null == 'anull'",
+                "'ab' * 2 == 'abab'",
+                "'c' - 1 == 'b'",
+                "#dogCount / 5 == 2",
+                "#dogCount % 5 == 2",
+                "#dogCount / 5 == 2.4",
+                "#dogCount * 1.0 / 5 == 2.4",
+                "#weight / 2 > 1",
+                "-#dogCount < 0",
+                "#deviceId + '-x' == 'pixel-7-x'",
+                "#missing + 1 > 0",
+                "!(#missing + 1 > 0)",
+                "!(-#deviceId == 0)",
+                "10 / 0 == 0",
+                "10.0 / 0 > 1000")) {
+            assertSameAsSpel(expression);
+        }
+    }
+
+    @Test
+    void nullsAndTypesMatchSpel() {
+        for (String expression : List.of(
+                "#additionalData['dogCount'] < 5",
+                "#additionalData['dogCount'] <= 5",
+                "#additionalData['dogCount'] > 5",
+                "#additionalData['missing'] >= 0",
+                "null < 1",
+                "null <= null",
+                "1 > null",
+                "'a' < 'b'",
+                "true > false",
+                "applicantInfo.name == null",
+                "applicantInfo?.name == null",
+                "locationData.latitude != 28.5",
+                "locationData?.latitude != 28.5",
+                "#applicantInfo.deviceId == 'pixel-7'",
+                "#metadata?.timestamp == null",
+                "#additionalData.name == null",
+                "!(#additionalData['s'] > 5)",
+                "#additionalData['s'] > '5'",
+                "#additionalData['s'] == 7",
+                "#dogCount.toLowerCase() == 'x'",
+                "#deviceId.size() > 0",
+                "#deviceId?.length() > 5",
+                "#evidences.length() > 0",
+                "#evidences.isEmpty()",
+                "#deviceId.contains('sdk')",
+                "#deviceId?.contains('sdk')",
+                "#deviceId.startsWith(7)",
+                "#additionalData.contains('s')",
+                "#evidences[0].purpose == 'SELFIE'",
+                "#evidences[2] == null",
+                "#deviceId[0] == 'p'",
+                "#missing[0] == null",
+                "!#missing",
+                "#missing && true",
+                "false && #missing",
+                "#additionalData['isAggressive']",
+                "#additionalData['isAggressive'] || false",
+                "#dogCount")) {
+            assertSameAsSpel(expression);
+        }
+    }
+
+    @Test
+    void rejectsSpelOutsideTheLanguage() {
+        for (String expression : List.of(
+                "T(java.lang.Runtime).getRuntime() != null",
+                "#deviceId ?: 'unknown'",
+                "#evidences.?[purpose == 'SELFIE'].size() > 0",
+                "#deviceId matches '.*emulator.*'",
+                "3000000000 > 1")) {
+            assertThrows(IllegalArgumentException.class, () -> RuleDsl.compile(expression), expression);
+        }
+    }
+
+    private void assertSameAsSpel(String expression) {
+        CompiledExpression dsl = RuleDsl.compile(expression);
+        CompiledExpression reference = spel.compileSpel(expression);
+        List<FraudEvaluationRequest> fixtures = fixtures();
+        for (int i = 0; i < fixtures.size(); i++) {
+            FraudEvaluationRequest request = fixtures.get(i);
+            assertEquals(outcome(reference, request), outcome(dsl, request),
+                    "'" + expression + "' on fixture " + i);
+        }
+    }
+
+    private Object outcome(CompiledExpression expression, FraudEvaluationRequest request) {
+        try {
+            return expression.matches(request, () -> spel.createContext(request));
+        } catch (RuntimeException e) {
+            return ERROR;
+        }
+    }
+
+    private static List<String> shippedCustomExpressions() throws IOException {
+        try (InputStream in = RuleDslTest.class.getResourceAsStream("/mdms/FRAUD-DETECTION/FraudRules.json")) {
+            List<String> expressions = new ArrayList<>();
+            for (JsonNode rule : new ObjectMapper().readTree(in).get("FraudRules")) {
+                JsonNode condition = rule.path("condition");
+                if ("CUSTOM".equals(condition.path("type").asText())) {
+                    expressions.add(condition.get("expression").asText());
+                }
+            }
+            return expressions;
+        }
+    }
+
+    private static List<FraudEvaluationRequest> fixtures() {
+        List<FraudEvaluationRequest> fixtures = new ArrayList<>();
+        fixtures.add(new FraudEvaluationRequest());
+
+        Map<String, Object> flagged = new HashMap<>();
+        flagged.put("isAggressive", true);
+        flagged.put("imageQualityScore", 0.3);
+        flagged.put("dogCount", 12);
+        flagged.put("lifetimeReportCount", 51);
+        flagged.put("weight", 3.5f);
+        fixtures.add(request("android-emulator-x86", 28.56, 77.10, 1, flagged));
+
+        Map<String, Object> boundary = new HashMap<>();
+        boundary.put("isAggressive", "true");
+        boundary.put("imageQualityScore", 0.5);
+        boundary.put("dogCount", 10);
+        boundary.put("lifetimeReportCount", 50L);
+        boundary.put("weight", new BigDecimal("2.50"));
+        fixtures.add(request("pixel-7", 28.55, 77.12, 2, boundary));
+
+        Map<String, Object> nulls = new HashMap<>();
+        nulls.put("isAggressive", true);
+        nulls.put("imageQualityScore", null);
+        nulls.put("dogCount", 10.5);
+        nulls.put("lifetimeReportCount", null);
+        fixtures.add(request("generic-sdk", null, 77.10, 0, nulls));
+
+        fixtures.add(request(null, 28.565, 77.09, 3, new HashMap<>()));
+
+        Map<String, Object> mistyped = new HashMap<>();
+        mistyped.put("s", "7");
+        mistyped.put("isAggressive", "yes");
+        mistyped.put("dogCount", "many");
+        fixtures.add(FraudEvaluationRequest.builder()
+                .locationData(new LocationData())
+                .evidences(List.of(EvidenceData.builder().purpose("SELFIE").build()))
+                .additionalData(mistyped)
+                .build());
+        return fixtures;
+    }
+
+    private static FraudEvaluationRequest request(String deviceId, Double latitude, Double longitude,
+                                                  int evidenceCount, Map<String, Object> additionalData) {
+        List<EvidenceData> evidences = new ArrayList<>();
+        for (int i = 0; i < evidenceCount; i++) {
+            evidences.add(EvidenceData.builder().purpose(i == 0 ? "SELFIE" : "DOG_PHOTO").build());
+        }
+        return FraudEvaluationRequest.builder()
+                .applicantInfo(ApplicantInfo.builder().applicantId("A-1").deviceId(deviceId).build())
+                .locationData(LocationData.builder().latitude(latitude).longitude(longitude).build())
+                .evidences(evidences)
+                .additionalData(additionalData)
+                .build();
+    }
+}
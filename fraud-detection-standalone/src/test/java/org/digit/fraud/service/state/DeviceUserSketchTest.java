@@ -0,0 +1,73 @@
+package org.digit.fraud.service.state;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeviceUserSketchTest {
+
+    private final ByteBuffer buf = ByteBuffer.allocate(DeviceUserSketch.BYTES);
+
+    @Test
+    void countsExactlyUpToCapacityAndNeverBelowItBeyond() {
+        for (int i = 1; i <= DeviceUserSketch.EXACT_CAPACITY; i++) {
+            assertEquals(i, DeviceUserSketch.add(buf, 0, user(i), 1));
+        }
+        int seventeenth = DeviceUserSketch.add(buf, 0, user(DeviceUserSketch.EXACT_CAPACITY + 1), 1);
+        assertTrue(seventeenth >= DeviceUserSketch.EXACT_CAPACITY + 1, "estimate " + seventeenth);
+
+        // Still a sketch for known users, and close to the true count
+        int again = DeviceUserSketch.add(buf, 0, user(1), 1);
+        assertTrue(again >= DeviceUserSketch.EXACT_CAPACITY + 1 && again <= 22, "estimate " + again);
+    }
+
+    @Test
+    void reAddingTheSameUserDoesNotCountTwice() {
+        assertEquals(1, DeviceUserSketch.add(buf, 0, user(1), 1));
+        assertEquals(1, DeviceUserSketch.add(buf, 0, user(1), 1));
+        assertEquals(2, DeviceUserSketch.add(buf, 0, user(2), 1));
+        assertEquals(2, DeviceUserSketch.add(buf, 0, user(1), 1));
+
+        // Seen in the previous window and again in the current one
+        assertEquals(2, DeviceUserSketch.add(buf, 0, user(1), 2));
+    }
+
+    @Test
+    void usersExpireAfterTwoWindows() {
+        DeviceUserSketch.add(buf, 0, user(1), 10);
+        assertEquals(2, DeviceUserSketch.add(buf, 0, user(2), 10));
+        assertEquals(3, DeviceUserSketch.add(buf, 0, user(3), 11));
+
+        // Window 10 is replaced; only user 3 from window 11 still counts
+        assertEquals(2, DeviceUserSketch.add(buf, 0, user(4), 12));
+
+        // After a gap neither stored window is the previous one
+        assertEquals(1, DeviceUserSketch.add(buf, 0, user(5), 14));
+    }
+
+    @Test
+    void expiredSketchWindowIsResetToExact() {
+        for (int i = 1; i <= 40; i++) {
+            DeviceUserSketch.add(buf, 0, user(i), 1);
+        }
+        DeviceUserSketch.add(buf, 0, user(100), 2);
+        assertEquals(1, DeviceUserSketch.add(buf, 0, user(100), 3));
+        assertEquals(2, DeviceUserSketch.add(buf, 0, user(101), 3));
+    }
+
+    @Test
+    void recordsAtAnOffsetDoNotOverlap() {
+        ByteBuffer shared = ByteBuffer.allocate(2 * DeviceUserSketch.BYTES);
+        DeviceUserSketch.add(shared, 0, user(1), 1);
+        DeviceUserSketch.add(shared, 0, user(2), 1);
+        assertEquals(1, DeviceUserSketch.add(shared, DeviceUserSketch.BYTES, user(3), 1));
+        assertEquals(3, DeviceUserSketch.add(shared, 0, user(4), 1));
+    }
+
+    private static long user(int i) {
+        return MappedSlotTable.fingerprint("applicant-" + i);
+    }
+}
@@ -0,0 +1,65 @@
+package org.digit.fraud.service.state;
+
+import org.digit.fraud.service.state.FraudStateStore.HashType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MappedFraudStateStoreTest {
+
+    private static final long NOW = System.currentTimeMillis();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reportsOnlyOtherApplicationsAsHashOwners() throws IOException {
+        MappedFraudStateStore store = open();
+        try {
+            assertNull(store.putHashIfAbsent(HashType.CONTENT, "h1", "SDCRS-1", NOW));
+            assertNull(store.putHashIfAbsent(HashType.CONTENT, "h1", "SDCRS-1", NOW));
+            assertEquals("SDCRS-1", store.putHashIfAbsent(HashType.CONTENT, "h1", "SDCRS-2", NOW));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void longApplicationIdIsNotItsOwnDuplicate() throws IOException {
+        String prefix = "pg.citya-SDCRS-".repeat(4);
+        String first = prefix + "0001";
+        String second = prefix + "0002";
+        MappedFraudStateStore store = open();
+        try {
+            assertNull(store.putHashIfAbsent(HashType.CONTENT, "h1", first, NOW));
+            assertNull(store.putHashIfAbsent(HashType.CONTENT, "h1", first, NOW));
+
+            String owner = store.putHashIfAbsent(HashType.CONTENT, "h1", second, NOW);
+            assertEquals(first.substring(0, MappedFraudStateStore.MAX_APPLICATION_ID_BYTES) + "...", owner);
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void cutsLongIdsAtACharacterBoundary() throws IOException {
+        // 53 ASCII bytes, then a 3-byte character that would straddle the limit
+        String id = "A".repeat(53) + "\u20ac" + "tail";
+        MappedFraudStateStore store = open();
+        try {
+            store.putHashIfAbsent(HashType.CONTENT, "h1", id, NOW);
+            assertEquals("A".repeat(53) + "...", store.putHashIfAbsent(HashType.CONTENT, "h1", "other", NOW));
+        } finally {
+            store.close();
+        }
+    }
+
+    private MappedFraudStateStore open() {
+        return new MappedFraudStateStore(directory.toString(), 1024, 8, 744, 720, 168);
+    }
+}
@@ -0,0 +1,118 @@
+package org.digit.fraud.service.state;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedSlotTableTest {
+
+    private static final long ABSENT = -1;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackEntriesAfterCloseAndReopen() throws IOException {
+        Path file = directory.resolve("table.dat");
+        try (MappedSlotTable table = new MappedSlotTable("test", file, 1024, 8)) {
+            for (long key = 1; key <= 500; key++) {
+                long value = key * 7;
+                table.upsert(key, 1000, 0, (buf, offset, created) -> buf.putLong(offset, value));
+            }
+            assertEquals(500, table.size());
+        }
+
+        try (MappedSlotTable reopened = new MappedSlotTable("test", file, 1024, 8)) {
+            assertEquals(500, reopened.size());
+            for (long key = 1; key <= 500; key++) {
+                assertEquals(key * 7, reopened.read(key, 0, (buf, offset) -> buf.getLong(offset), ABSENT));
+            }
+            assertEquals(ABSENT, reopened.read(501, 0, (buf, offset) -> buf.getLong(offset), ABSENT));
+        }
+    }
+
+    @Test
+    void updatesExistingSlotInPlace() throws IOException {
+        try (MappedSlotTable table = new MappedSlotTable("test", directory.resolve("table.dat"), 16, 8)) {
+            assertTrue(table.upsert(42, 1000, 0, (buf, offset, created) -> created));
+            assertFalse(table.upsert(42, 2000, 0, (buf, offset, created) -> {
+                buf.putLong(offset, buf.getLong(offset) + 1);
+                return created;
+            }));
+            assertEquals(1, table.read(42, 0, (buf, offset) -> buf.getLong(offset), ABSENT));
+            assertEquals(1, table.size());
+        }
+    }
+
+    @Test
+    void recyclesLeastRecentlyTouchedSlotWhenGroupIsFull() throws IOException {
+        // Capacity 16 is a single group, so every key competes for the same slots
+        try (MappedSlotTable table = new MappedSlotTable("test", directory.resolve("table.dat"), 16, 8)) {
+            for (long key = 1; key <= MappedSlotTable.GROUP_SIZE; key++) {
+                long value = key;
+                table.upsert(key, 1000 + key, 0, (buf, offset, created) -> buf.putLong(offset, value));
+            }
+            // Touch key 1 again so key 2 becomes the oldest
+            table.upsert(1, 5000, 0, (buf, offset, created) -> null);
+
+            assertTrue(table.upsert(99, 6000, 0, (buf, offset, created) -> {
+                assertEquals(0, buf.getLong(offset), "recycled payload is cleared");
+                return created;
+            }));
+
+            assertEquals(MappedSlotTable.GROUP_SIZE, table.size());
+            assertEquals(ABSENT, table.read(2, 0, (buf, offset) -> buf.getLong(offset), ABSENT));
+            assertEquals(1, table.read(1, 0, (buf, offset) -> buf.getLong(offset), ABSENT));
+            assertEquals(3, table.read(3, 0, (buf, offset) -> buf.getLong(offset), ABSENT));
+        }
+    }
+
+    @Test
+    void treatsExpiredSlotsAsAbsentAndEvictsThem() throws IOException {
+        try (MappedSlotTable table = new MappedSlotTable("test", directory.resolve("table.dat"), 64, 8)) {
+            table.upsert(1, 1000, 0, (buf, offset, created) -> buf.putLong(offset, 11));
+            table.upsert(2, 3000, 0, (buf, offset, created) -> buf.putLong(offset, 22));
+
+            assertEquals(ABSENT, table.read(1, 2000, (buf, offset) -> buf.getLong(offset), ABSENT));
+            assertTrue(table.upsert(1, 4000, 2000, (buf, offset, created) -> {
+                assertEquals(0, buf.getLong(offset), "expired payload is cleared");
+                return created;
+            }));
+
+            assertEquals(1, table.evictOlderThan(3500));
+            assertEquals(1, table.size());
+            assertEquals(ABSENT, table.read(2, 0, (buf, offset) -> buf.getLong(offset), ABSENT));
+        }
+    }
+
+    @Test
+    void rejectsFileCreatedWithDifferentLayout() throws IOException {
+        Path file = directory.resolve("table.dat");
+        new MappedSlotTable("test", file, 1024, 8).close();
+
+        assertThrows(IllegalStateException.class, () -> new MappedSlotTable("test", file, 2048, 8));
+        assertThrows(IllegalStateException.class, () -> new MappedSlotTable("test", file, 1024, 16));
+    }
+
+    @Test
+    void rejectsFileThatIsNotAStateFile() throws IOException {
+        Path file = directory.resolve("other.dat");
+        Files.write(file, new byte[4096]);
+
+        assertThrows(IllegalStateException.class, () -> new MappedSlotTable("test", file, 16, 8));
+    }
+
+    @Test
+    void fingerprintIsNeverZero() {
+        assertTrue(MappedSlotTable.fingerprint("") != 0);
+        assertTrue(MappedSlotTable.fingerprint("TEACHER-1") != MappedSlotTable.fingerprint("TEACHER-2"));
+    }
+}